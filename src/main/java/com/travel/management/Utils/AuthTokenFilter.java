@@ -1,5 +1,9 @@
 package com.travel.management.Utils;
 
+import com.travel.management.security.AccessTokenRevocationList;
+import com.travel.management.security.AuthenticatedUser;
+import com.travel.management.security.SecurityEpochRegistry;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,16 +18,27 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 
 @Slf4j
 public class AuthTokenFilter extends OncePerRequestFilter {
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final AccessTokenRevocationList revocationList;
+    private final boolean statelessAuthorization;
 
-    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
+    public AuthTokenFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService,
+                           SecurityEpochRegistry securityEpochRegistry,
+                           AccessTokenRevocationList revocationList,
+                           boolean statelessAuthorization) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.revocationList = revocationList;
+        this.statelessAuthorization = statelessAuthorization;
     }
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
@@ -31,10 +46,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            Claims claims = jwt != null ? jwtUtils.parseJwtClaims(jwt) : null;
+            if (claims != null && revocationList.isRevoked(claims)) {
+                log.debug("Rejected revoked access token for {}", claims.getSubject());
+                claims = null;
+            }
+            if (claims != null) {
+                String username = claims.getSubject();
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = statelessAuthorization ? principalFromClaims(claims) : null;
+                if (userDetails == null) {
+                    // No usable claims or the epoch is stale: fall back to the database
+                    userDetails = userDetailsService.loadUserByUsername(username);
+                }
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
@@ -51,6 +75,18 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+    private AuthenticatedUser principalFromClaims(Claims claims) {
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        Long epoch = claims.get(JwtUtils.CLAIM_EPOCH, Long.class);
+        Collection<?> roles = claims.get(JwtUtils.CLAIM_ROLES, Collection.class);
+        if (userId == null || epoch == null || roles == null
+                || !securityEpochRegistry.isCurrent(userId, epoch)) {
+            return null;
+        }
+        List<String> roleNames = roles.stream().map(String::valueOf).toList();
+        // Only unlocked principals reach the token issuer, so the token implies an enabled account
+        return new AuthenticatedUser(userId, claims.getSubject(), null, roleNames, epoch, true);
+    }
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
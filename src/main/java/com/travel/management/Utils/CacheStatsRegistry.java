@@ -0,0 +1,22 @@
+package com.travel.management.Utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Named in-process caches whose counters are exposed to admins.
+ */
+@Component
+public class CacheStatsRegistry {
+    private final Map<String, ExpiringLruCache<?, ?>> caches = new ConcurrentSkipListMap<>();
+
+    public void register(String name, ExpiringLruCache<?, ?> cache) {
+        caches.put(name, cache);
+    }
+
+    public Map<String, ExpiringLruCache<?, ?>> getCaches() {
+        return Map.copyOf(caches);
+    }
+}
@@ -0,0 +1,103 @@
+package com.travel.management.Utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams RFC 4180 records: comma separated, fields optionally in double
+ * quotes, {@code ""} for a quote inside a quoted field, which may also span
+ * lines. Only one record is held at a time.
+ */
+public class CsvRecordReader {
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pending = -2;
+
+    public CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * The next record, or null at the end of the input. A malformed record
+     * throws {@link IllegalArgumentException}; the reader cannot resync after it.
+     */
+    public List<String> read() throws IOException {
+        int c = next();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> record = new ArrayList<>();
+        int length = 0;
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new IllegalArgumentException("Record on line " + recordLine + " is too long");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int following = next();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        pending = following;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int following = next();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+            c = next();
+        }
+    }
+
+    // Line the last record returned by read() started on
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private int next() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,139 @@
+package com.travel.management.Utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Small bounded in-memory cache. Entries are dropped when they expire or when
+ * the cache is full and they are the least recently used one. Hits, misses and
+ * evictions are counted so the cache can be sized from real traffic.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpiringLruCache(int maxSize, long ttlMs) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        // access-order map so the eldest entry is always the least recently used
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * Stores the value until the default ttl runs out or until {@code expiresAt},
+     * whichever comes first.
+     */
+    public synchronized void put(K key, V value, long expiresAt) {
+        long now = System.currentTimeMillis();
+        long deadline = Math.min(expiresAt, now + ttlMs);
+        if (deadline <= now) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, deadline));
+    }
+
+    /**
+     * Stores {@code value}, or when a live entry exists, what {@code remapping}
+     * makes of the current value and {@code value}. An entry the remapping
+     * leaves unchanged keeps its expiry.
+     */
+    public synchronized V merge(K key, V value, BinaryOperator<V> remapping) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            V merged = remapping.apply(entry.value, value);
+            if (merged.equals(entry.value)) {
+                return merged;
+            }
+            value = merged;
+        }
+        entries.put(key, new Entry<>(value, now + ttlMs));
+        return value;
+    }
+
+    /**
+     * Returns the live value for {@code key}, loading and storing it when
+     * missing. The loader runs under the cache lock, so it must be quick;
+     * slow loads should go through {@link #get} and {@link #put} instead.
+     */
+    public synchronized V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
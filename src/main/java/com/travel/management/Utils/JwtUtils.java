@@ -1,65 +1,145 @@
 package com.travel.management.Utils;
 
 import io.jsonwebtoken.*;
+import com.travel.management.model.User;
+import com.travel.management.security.AuthenticatedUser;
+import io.jsonwebtoken.security.SecurityException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class JwtUtils {
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_EPOCH = "epoch";
+    public static final String CLAIM_SESSION_ID = "sid";
+    // iat has second precision; this one is what logout-all cutoffs are compared against
+    public static final String CLAIM_ISSUED_AT_MS = "iat_ms";
 
     private final Key jwtSigningKey;
     private final int jwtExpirationMs;
     private final int refreshTokenDurationMs;
+    // JwtParser is immutable and thread-safe, so one instance serves every request
+    private final JwtParser jwtParser;
+    // Recently verified tokens keyed by their SHA-256 digest, never kept past the token expiry
+    private final ExpiringLruCache<String, Claims> verifiedTokens;
 
     public JwtUtils(Key jwtSigningKey,
                     @Value("${jwt.expiration}") int jwtExpirationMs,
-                    @Value("${jwt.refresh-expiration}") int refreshTokenDurationMs) {
+                    @Value("${jwt.refresh-expiration}") int refreshTokenDurationMs,
+                    @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize,
+                    @Value("${jwt.verified-cache.ttl:300000}") long verifiedCacheTtlMs,
+                    CacheStatsRegistry cacheStatsRegistry) {
         this.jwtSigningKey = jwtSigningKey;
         this.jwtExpirationMs = jwtExpirationMs;
         this.refreshTokenDurationMs = refreshTokenDurationMs;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(jwtSigningKey)
+                .build();
+        this.verifiedTokens = new ExpiringLruCache<>(verifiedCacheSize, verifiedCacheTtlMs);
+        cacheStatsRegistry.register("verifiedTokens", verifiedTokens);
     }
     public String generateTokenFromUsername(String username) {
         return Jwts.builder()
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(jwtSigningKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     public String generateJwtToken(Authentication authentication) {
+        return generateJwtToken(authentication, null);
+    }
+
+    public String generateJwtToken(Authentication authentication, String sessionId) {
         UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        if (userPrincipal instanceof AuthenticatedUser user) {
+            return generateToken(user.getEmail(), user.getId(), user.getRoles(), user.getSecurityEpoch(), sessionId);
+        }
+        return generateTokenFromUsername(userPrincipal.getUsername());
+    }
+
+    public String generateTokenFromUser(User user) {
+        return generateTokenFromUser(user, null);
+    }
+
+    public String generateTokenFromUser(User user, String sessionId) {
+        return generateToken(user.getEmail(), user.getId(),
+                user.getRoles().stream()
+                        .map(role -> role.getRoleType().name())
+                        .collect(Collectors.toSet()),
+                user.getSecurityEpoch(),
+                sessionId);
+    }
+
+    // Carries id, roles and security epoch so the filter can authorize without loading the user,
+    // and the refresh session it belongs to so logout can end just that session
+    private String generateToken(String email, Long userId, Collection<String> roles, long securityEpoch,
+                                 String sessionId) {
+        Date issuedAt = new Date();
         return Jwts.builder()
-                .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .setSubject(email)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_EPOCH, securityEpoch)
+                .claim(CLAIM_SESSION_ID, sessionId)
+                .claim(CLAIM_ISSUED_AT_MS, issuedAt.getTime())
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + jwtExpirationMs))
                 .signWith(jwtSigningKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtSigningKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims claims = parseJwtClaims(token);
+        if (claims == null) {
+            throw new MalformedJwtException("Invalid JWT token");
+        }
+        return claims.getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseJwtClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or null when the token is
+     * invalid or expired. Tokens seen recently are served from the cache without
+     * checking the signature again.
+     */
+    public Claims parseJwtClaims(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            log.error("JWT claims string is empty");
+            return null;
+        }
+        String digest = digest(authToken);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(jwtSigningKey)
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            long expiresAt = claims.getExpiration() != null
+                    ? claims.getExpiration().getTime()
+                    : Long.MAX_VALUE;
+            verifiedTokens.put(digest, claims, expiresAt);
+            return claims;
         } catch (SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -70,8 +150,20 @@ public class JwtUtils {
             log.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT token could not be verified: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return false;
     }
 
     public String generateRefreshToken() {
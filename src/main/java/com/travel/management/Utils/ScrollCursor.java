@@ -0,0 +1,178 @@
+package com.travel.management.Utils;
+
+import com.travel.management.dto.CursorSlice;
+import com.travel.management.model.Booking;
+import com.travel.management.model.Review;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor tokens for keyset pagination. A token carries the sort-key
+ * values of the last row of a slice, so the next slice is read with a
+ * {@code WHERE (key, id) < (?, ?)} seek instead of an OFFSET scan, and no
+ * count query is needed. Such a seek cannot compare against a null key, so
+ * only properties that are never null can be sorted by.
+ */
+public final class ScrollCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String ID = "id";
+    // Enum sort keys by a short code, so a token never names a class to load
+    private static final Map<String, Class<? extends Enum<?>>> ENUM_TYPES = Map.of(
+            "B", Booking.BookingStatus.class,
+            "R", Review.ReviewStatus.class);
+
+    private ScrollCursor() {
+    }
+
+    /**
+     * The sort with {@code id} appended in the direction of the last order,
+     * so every row has a unique position.
+     */
+    public static Sort withIdTiebreaker(Sort sort) {
+        if (sort.getOrderFor(ID) != null) {
+            return sort;
+        }
+        Sort.Direction direction = sort.stream()
+                .reduce((first, second) -> second)
+                .map(Sort.Order::getDirection)
+                .orElse(Sort.Direction.DESC);
+        return sort.and(Sort.by(direction, ID));
+    }
+
+    /**
+     * The requested sort, or {@code defaultSort} when none is given, with the
+     * id tie-breaker appended. Throws {@link IllegalArgumentException} for a
+     * property outside {@code nonNullProperties}.
+     */
+    public static Sort sortFor(Pageable pageable, Sort defaultSort, Set<String> nonNullProperties) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : defaultSort;
+        for (Sort.Order order : sort) {
+            if (!ID.equals(order.getProperty()) && !nonNullProperties.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot paginate by cursor on " + order.getProperty());
+            }
+        }
+        return withIdTiebreaker(sort);
+    }
+
+    /**
+     * Turns a cursor from a previous slice into a scroll position; a missing
+     * cursor starts at the first row. Throws {@link IllegalArgumentException}
+     * for a token that was not issued for this sort.
+     */
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            for (String part : decoded.split("\u001f")) {
+                String[] fields = part.split("\u001e", 3);
+                keys.put(fields[0], parse(fields[1], fields[2]));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        Set<String> properties = new HashSet<>();
+        sort.forEach(order -> properties.add(order.getProperty()));
+        if (!keys.keySet().equals(properties)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Maps a window of entities to a slice, with a cursor pointing after its
+     * last row when there is more to read.
+     */
+    public static <T, R> CursorSlice<R> toSlice(Window<T> window, Function<T, R> mapper) {
+        return toSlice(window, window.getContent().stream().map(mapper).toList());
+    }
+
+    /**
+     * Same as {@link #toSlice(Window, Function)} for callers that load the slice
+     * content separately, in window order.
+     */
+    public static <R> CursorSlice<R> toSlice(Window<?> window, List<R> content) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()
+                && window.positionAt(window.size() - 1) instanceof KeysetScrollPosition position) {
+            nextCursor = encode(position.getKeys());
+        }
+        return CursorSlice.<R>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static String encode(Map<String, ?> keys) {
+        StringBuilder token = new StringBuilder();
+        keys.forEach((property, value) -> {
+            if (!token.isEmpty()) {
+                token.append('\u001f');
+            }
+            token.append(property).append('\u001e').append(typeOf(value)).append('\u001e').append(value);
+        });
+        return ENCODER.encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long) return "J";
+        if (value instanceof Integer) return "I";
+        if (value instanceof Double) return "D";
+        if (value instanceof BigDecimal) return "N";
+        if (value instanceof Boolean) return "Z";
+        if (value instanceof LocalDateTime) return "T";
+        if (value instanceof LocalDate) return "d";
+        if (value instanceof String) return "S";
+        if (value instanceof Enum<?> e) {
+            for (Map.Entry<String, Class<? extends Enum<?>>> type : ENUM_TYPES.entrySet()) {
+                if (type.getValue() == e.getDeclaringClass()) {
+                    return "E" + type.getKey();
+                }
+            }
+        }
+        throw new IllegalArgumentException("Cannot paginate by cursor on a "
+                + (value == null ? "null" : value.getClass().getSimpleName()) + " sort key");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parse(String type, String value) {
+        return switch (type.charAt(0)) {
+            case 'J' -> Long.valueOf(value);
+            case 'I' -> Integer.valueOf(value);
+            case 'D' -> Double.valueOf(value);
+            case 'N' -> new BigDecimal(value);
+            case 'Z' -> Boolean.valueOf(value);
+            case 'T' -> LocalDateTime.parse(value);
+            case 'd' -> LocalDate.parse(value);
+            case 'S' -> value;
+            case 'E' -> {
+                Class<? extends Enum<?>> enumType = ENUM_TYPES.get(type.substring(1));
+                if (enumType == null) {
+                    throw new IllegalArgumentException("Unsupported cursor key type");
+                }
+                yield Enum.valueOf((Class<Enum>) (Class) enumType, value);
+            }
+            default -> throw new IllegalArgumentException("Unsupported cursor key type");
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package com.travel.management.Utils;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token buckets keyed by string. Keys are spread over a fixed number of
+ * stripes, each holding at most its share of the bucket limit, so memory
+ * stays bounded no matter how many distinct keys arrive. A stripe is an
+ * access-ordered map behind its own lock, held only for the lookup; taking a
+ * token is lock-free. When a stripe is full the least recently used bucket
+ * makes room, so a flood of new keys never locks out the ones that follow it.
+ * A bucket that has refilled completely behaves exactly like a new one, so
+ * idle buckets are also swept periodically.
+ */
+public class TokenBucketLimiter {
+
+    private final List<Stripe> stripes;
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TokenBucketLimiter(int maxBuckets, int stripeCount) {
+        if (maxBuckets <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("Bucket and stripe counts must be positive");
+        }
+        // power of two so a stripe can be picked with a mask
+        int stripeTotal = Integer.highestOneBit(Math.min(stripeCount, maxBuckets));
+        int maxBucketsPerStripe = Math.max(1, maxBuckets / stripeTotal);
+        this.stripes = new ArrayList<>(stripeTotal);
+        for (int i = 0; i < stripeTotal; i++) {
+            stripes.add(new Stripe(maxBucketsPerStripe, evictions));
+        }
+    }
+
+    /**
+     * Takes one token from the bucket for {@code key}, creating it full when
+     * missing. The bucket holds up to {@code capacity} tokens and regains all of
+     * them over {@code refillPeriodMs}.
+     */
+    public boolean tryAcquire(String key, int capacity, long refillPeriodMs) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        Bucket bucket;
+        synchronized (stripe) {
+            bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, refillPeriodMs, now);
+                stripe.put(key, bucket);
+            }
+        }
+        if (bucket.tryConsume(now)) {
+            return true;
+        }
+        rejections.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Drops every bucket that has refilled completely.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            int removed = 0;
+            synchronized (stripe) {
+                for (Iterator<Bucket> it = stripe.values().iterator(); it.hasNext(); ) {
+                    if (it.next().isFull(now)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+            evictions.addAndGet(removed);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (stripes.size() - 1));
+    }
+
+    // Access order, so the eldest entry is the bucket least recently asked for
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxBuckets;
+        private final AtomicLong evictions;
+
+        private Stripe(int maxBuckets, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.maxBuckets = maxBuckets;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            if (size() > maxBuckets) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private static final class Bucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+
+        private Bucket(int capacity, long refillPeriodMs, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = capacity / (refillPeriodMs * 1_000_000d);
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        private boolean tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                double available = refilled(current, now);
+                if (available < 1) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(available - 1, Math.max(now, current.updatedAt)))) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean isFull(long now) {
+            return refilled(state.get(), now) >= capacity;
+        }
+
+        private double refilled(State current, long now) {
+            long elapsed = Math.max(0, now - current.updatedAt);
+            return Math.min(capacity, current.tokens + elapsed * tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.travel.management.Utils;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the free-text trip duration ("3 days", "1 week", "6 hours") into
+ * whole days once, when the trip is written, so package totals can be summed
+ * in the database instead of parsed on every change.
+ */
+public final class TripDurations {
+    private static final Pattern AMOUNT = Pattern.compile("(\\d+)\\s*([a-z]*)");
+
+    private TripDurations() {
+    }
+
+    /**
+     * Whole days for the first amount in the text, or null when there is none.
+     * Weeks count seven days; hours round up to whole days.
+     */
+    public static Integer parseDays(String duration) {
+        if (duration == null) {
+            return null;
+        }
+        Matcher matcher = AMOUNT.matcher(duration.toLowerCase(Locale.ROOT));
+        if (!matcher.find()) {
+            return null;
+        }
+        long amount;
+        try {
+            amount = Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String unit = matcher.group(2);
+        long days;
+        if (unit.startsWith("w")) {
+            days = amount * 7;
+        } else if (unit.startsWith("h")) {
+            days = (amount + 23) / 24;
+        } else {
+            days = amount;
+        }
+        return days > Integer.MAX_VALUE ? null : (int) days;
+    }
+
+    public static String format(int days) {
+        if (days == 1) {
+            return "1 day";
+        }
+        return days + " days";
+    }
+}
@@ -0,0 +1,63 @@
+package com.travel.management.config;
+
+import com.travel.management.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves each pooled id generator past the ids already in its table. Rows
+ * written while the tables still used identity columns would otherwise
+ * collide with the first ids handed out; on a fresh schema this is a no-op.
+ * Runs after the entity manager factory has created or updated the schema
+ * and before the web server takes requests.
+ */
+@Component
+@Slf4j
+public class IdGeneratorAlignment {
+    // generator name -> table and id column
+    private static final Map<String, String[]> GENERATED_TABLES = Map.of(
+            IdGenerators.TRIPS, new String[]{"trips", "id"},
+            IdGenerators.PACKAGES, new String[]{"packages", "id"},
+            IdGenerators.BOOKINGS, new String[]{"bookings", "booking_id"},
+            IdGenerators.PAYMENTS, new String[]{"payments", "payment_id"});
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the factory is only injected so the schema exists before alignment runs
+    public IdGeneratorAlignment(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        GENERATED_TABLES.forEach((generator, table) -> {
+            Long maxId = jdbcTemplate.queryForObject(
+                    "SELECT MAX(" + table[1] + ") FROM " + table[0], Long.class);
+            if (maxId == null) {
+                return;
+            }
+            // a pooled generator hands out the block ending at the stored value
+            long floor = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = ? WHERE "
+                            + IdGenerators.NAME_COLUMN + " = ? AND " + IdGenerators.VALUE_COLUMN + " < ?",
+                    floor, generator, floor);
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + IdGenerators.TABLE + " WHERE " + IdGenerators.NAME_COLUMN + " = ?",
+                    Integer.class, generator);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", "
+                        + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)", generator, floor);
+                updated = 1;
+            }
+            if (updated > 0) {
+                log.info("Id generator '{}' moved past existing id {}", generator, maxId);
+            }
+        });
+    }
+}
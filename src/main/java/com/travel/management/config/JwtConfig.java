@@ -2,9 +2,12 @@ package com.travel.management.config;
 
 import com.travel.management.Utils.AuthTokenFilter;
 import com.travel.management.Utils.JwtUtils;
+import com.travel.management.security.AccessTokenRevocationList;
+import com.travel.management.security.SecurityEpochRegistry;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,7 +24,11 @@ public class JwtConfig {
 
     @Bean
     public AuthTokenFilter authTokenFilter(JwtUtils jwtUtils,
-                                           @Qualifier("userDetailsServiceImpl") UserDetailsService userDetailsService) {
-        return new AuthTokenFilter(jwtUtils, userDetailsService);
+                                           @Qualifier("userDetailsServiceImpl") UserDetailsService userDetailsService,
+                                           SecurityEpochRegistry securityEpochRegistry,
+                                           AccessTokenRevocationList revocationList,
+                                           @Value("${jwt.stateless-authorization:false}") boolean statelessAuthorization) {
+        return new AuthTokenFilter(jwtUtils, userDetailsService, securityEpochRegistry, revocationList,
+                statelessAuthorization);
     }
 }
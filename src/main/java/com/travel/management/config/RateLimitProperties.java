@@ -0,0 +1,36 @@
+package com.travel.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "security.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private int maxBuckets = 100_000;
+    // Per-email buckets are kept apart, so made-up addresses cannot push out the per-IP ones
+    private int maxEmailBuckets = 20_000;
+    private int stripes = 64;
+    // Header the reverse proxy puts the client address in, e.g. X-Forwarded-For; empty to use the
+    // connection's address (which server.forward-headers-strategy may already have rewritten)
+    private String clientIpHeader;
+    private Map<String, EndpointLimit> endpoints = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class EndpointLimit {
+        // Requests allowed per window from one client IP, 0 for no limit
+        private int perIp;
+        // Requests allowed per window for one email address, 0 for no limit
+        private int perEmail;
+        private Duration window = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.travel.management.config;
+
+import com.travel.management.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Schema changes that {@code ddl-auto=update} cannot make on an existing
+ * database, applied before the entity manager factory starts. Every step
+ * looks at the schema first, so running them again is a no-op, and on a
+ * fresh database they find nothing to change.
+ */
+@Component(SchemaUpgrades.BEAN_NAME)
+@Slf4j
+public class SchemaUpgrades {
+    static final String BEAN_NAME = "schemaUpgrades";
+
+    // Verification and reset codes moved to one_time_codes. The primitive columns were NOT NULL
+    // without a default, so inserts into users fail for as long as they are left behind.
+    private static final List<String> LEGACY_USER_COLUMNS = List.of(
+            "verification",
+            "verification_code_expiry",
+            "reset_password_token",
+            "reset_password_token_expiry",
+            "reset_password_attempts");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaUpgrades(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void apply() {
+        for (String column : LEGACY_USER_COLUMNS) {
+            if (columnExists("users", column)) {
+                jdbcTemplate.execute("ALTER TABLE users DROP COLUMN " + column);
+                log.info("Dropped legacy column users.{}", column);
+            }
+        }
+        // The pooled id generators need their table even when Hibernate only validates the schema or leaves
+        // it alone. Hibernate adds a generator's row on first use, IdGeneratorAlignment moves it past old ids.
+        if (!tableExists(IdGenerators.TABLE)) {
+            jdbcTemplate.execute("CREATE TABLE " + IdGenerators.TABLE + " ("
+                    + IdGenerators.NAME_COLUMN + " VARCHAR(255) NOT NULL, "
+                    + IdGenerators.VALUE_COLUMN + " BIGINT, "
+                    + "PRIMARY KEY (" + IdGenerators.NAME_COLUMN + "))");
+            log.info("Created table {}", IdGenerators.TABLE);
+        }
+    }
+
+    boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(),
+                    identifier(metaData, table), new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        }));
+    }
+
+    boolean columnExists(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(),
+                    identifier(metaData, table), identifier(metaData, column))) {
+                return columns.next();
+            }
+        }));
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        return metaData.storesLowerCaseIdentifiers() ? name.toLowerCase() : name;
+    }
+
+    /**
+     * Makes the entity manager factory wait for the upgrades, so Hibernate
+     * validates or updates the schema they leave behind.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class EntityManagerFactoryDependsOnSchemaUpgrades extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnSchemaUpgrades() {
+            super(BEAN_NAME);
+        }
+    }
+}
@@ -4,9 +4,17 @@ import com.travel.management.Utils.JwtUtils;
 import com.travel.management.dto.*;
 import com.travel.management.exception.*;
 import com.travel.management.dto.RegistrationObjectDto;
+import com.travel.management.model.OneTimeCode;
 import com.travel.management.model.User;
+import com.travel.management.security.AccessTokenRevocationList;
+import com.travel.management.security.AuthRateLimiter;
 import com.travel.management.service.AuthenticationService;
+import com.travel.management.service.OneTimeCodeService;
+import com.travel.management.service.RefreshTokenService;
 import com.travel.management.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.MalformedJwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +25,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,21 +37,36 @@ public class AuthenticationController {
     private final AuthenticationService authenticationService;
     private final UserService userService;
     private final JwtUtils jwtUtils;
+    private final RefreshTokenService refreshTokenService;
+    private final AuthRateLimiter authRateLimiter;
+    private final AccessTokenRevocationList revocationList;
+    private final OneTimeCodeService oneTimeCodeService;
     @Autowired
-    public AuthenticationController(AuthenticationService authenticationService, UserService userService, JwtUtils jwtUtils) {
+    public AuthenticationController(AuthenticationService authenticationService, UserService userService, JwtUtils jwtUtils,
+                                    RefreshTokenService refreshTokenService, AuthRateLimiter authRateLimiter,
+                                    AccessTokenRevocationList revocationList,
+                                    OneTimeCodeService oneTimeCodeService) {
         this.authenticationService = authenticationService;
         this.userService = userService;
         this.jwtUtils = jwtUtils;
+        this.refreshTokenService = refreshTokenService;
+        this.authRateLimiter = authRateLimiter;
+        this.revocationList = revocationList;
+        this.oneTimeCodeService = oneTimeCodeService;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.LOGIN, httpRequest, loginRequest.getEmail());
         try {
-            LoginResponse response = authenticationService.authenticate(loginRequest);
+            LoginResponse response = authenticationService.authenticate(loginRequest, authRateLimiter.clientIp(httpRequest));
             return ResponseEntity.ok(response);
         } catch (AccountLockedException e) {
             return ResponseEntity.status(HttpStatus.LOCKED)
                     .body(new ApiResponse(false, e.getMessage(), LocalDateTime.now(), null));
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new ApiResponse(false, e.getMessage(), LocalDateTime.now(), null));
         } catch (InvalidCredentialsException | BadCredentialsException e) {
             log.error("Bad credentials: ", e);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -97,7 +121,9 @@ public class AuthenticationController {
         }
     }
     @PostMapping("/forgot-password")
-    public ResponseEntity<ApiResponse> forgotPassword(@Valid @RequestBody PasswordResetRequest request) {
+    public ResponseEntity<ApiResponse> forgotPassword(@Valid @RequestBody PasswordResetRequest request,
+                                                      HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.FORGOT_PASSWORD, httpRequest, request.getEmail());
         try {
             ApiResponse response = authenticationService.initiatePasswordReset(request);
             return ResponseEntity.ok(response);
@@ -140,19 +166,12 @@ public class AuthenticationController {
             if (refreshToken == null) {
                 throw new InvalidTokenException("Refresh token is required");
             }
-            // Rest of your existing logic
-            User user = userService.getUserByRefreshToken(refreshToken);
-            if (user == null || user.getRefreshTokenExpiry().isBefore(LocalDateTime.now())) {
-                throw new TokenExpiredException("Refresh token has expired");
-            }
-            String newAccessToken = jwtUtils.generateTokenFromUsername(user.getEmail());
-            String newRefreshToken = jwtUtils.generateRefreshToken();
-            user.setRefreshToken(newRefreshToken);
-            user.setRefreshTokenExpiry(LocalDateTime.now().plusDays(7));
-            userService.updateUser(user);
+            RefreshTokenService.IssuedRefreshToken rotated = refreshTokenService.rotate(refreshToken);
+            User user = rotated.user();
+            String newAccessToken = jwtUtils.generateTokenFromUser(user, rotated.sessionId());
             LoginResponse response = new LoginResponse(
                     newAccessToken,
-                    newRefreshToken,
+                    rotated.token(),
                     "Bearer",
                     3600L,
                     user.getEmail(),
@@ -167,7 +186,9 @@ public class AuthenticationController {
         }
     }
     @PostMapping("/resend-verification-code")
-    public ResponseEntity<ApiResponse> resendVerificationCode(@RequestBody Map<String, String> request) {
+    public ResponseEntity<ApiResponse> resendVerificationCode(@RequestBody Map<String, String> request,
+                                                              HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.RESEND_VERIFICATION_CODE, httpRequest, request.get("email"));
         try {
             String email = request.get("email");
             if (email == null) {
@@ -188,15 +209,15 @@ public class AuthenticationController {
     }
 
     @PostMapping("/resend-password-reset-code")
-    public ResponseEntity<ApiResponse> resendPasswordResetCode(@RequestBody Map<String, String> request) {
+    public ResponseEntity<ApiResponse> resendPasswordResetCode(@RequestBody Map<String, String> request,
+                                                               HttpServletRequest httpRequest) {
+        authRateLimiter.check(AuthRateLimiter.RESEND_PASSWORD_RESET_CODE, httpRequest, request.get("email"));
         try {
             String email = request.get("email");
             if (email == null) {
                 throw new IllegalArgumentException("Email is required");
             }
-            User user = userService.getUserByEmail(email);
-            if (user.getResetPasswordTokenExpiry() != null &&
-                    user.getResetPasswordTokenExpiry().isAfter(LocalDateTime.now().minusMinutes(5))) {
+            if (oneTimeCodeService.issuedWithin(email, OneTimeCode.Purpose.PASSWORD_RESET, Duration.ofMinutes(5))) {
                 throw new TooManyRequestsException("Please wait 5 minutes before requesting another code");
             }
             ApiResponse response = authenticationService.initiatePasswordReset(new PasswordResetRequest(email));
@@ -212,11 +233,27 @@ public class AuthenticationController {
         try {
             if (token != null && token.startsWith("Bearer ")) {
                 String jwt = token.substring(7);
-                String userEmail = jwtUtils.getUserNameFromJwtToken(jwt);
-                User user = userService.getUserByEmail(userEmail);
-                user.setRefreshToken(null);
-                user.setRefreshTokenExpiry(null);
-                userService.updateUser(user);
+                Claims claims = jwtUtils.parseJwtClaims(jwt);
+                if (claims == null) {
+                    throw new MalformedJwtException("Invalid JWT token");
+                }
+                // A revoked token must not end the sessions that replaced it
+                if (revocationList.isRevoked(claims)) {
+                    return revokedTokenResponse();
+                }
+                String sessionId = claims.get(JwtUtils.CLAIM_SESSION_ID, String.class);
+                Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+                if (userId == null) {
+                    userId = userService.getUserByEmail(claims.getSubject()).getId();
+                }
+                // Tokens issued before sessions existed carry no session id, so end them all
+                if (sessionId != null) {
+                    refreshTokenService.revokeSession(userId, sessionId);
+                    revocationList.revoke(claims);
+                } else {
+                    refreshTokenService.revokeAllSessions(userId);
+                    revocationList.revokeAllForUser(userId);
+                }
             }
             return ResponseEntity.ok(new ApiResponse(
                     true,
@@ -230,4 +267,41 @@ public class AuthenticationController {
                     .body(new ApiResponse(false, e.getMessage(), LocalDateTime.now(), null));
         }
     }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<ApiResponse> logoutAll(@RequestHeader("Authorization") String token) {
+        try {
+            if (token != null && token.startsWith("Bearer ")) {
+                Claims claims = jwtUtils.parseJwtClaims(token.substring(7));
+                if (claims == null) {
+                    throw new MalformedJwtException("Invalid JWT token");
+                }
+                // A revoked token must not end the sessions that replaced it
+                if (revocationList.isRevoked(claims)) {
+                    return revokedTokenResponse();
+                }
+                Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+                if (userId == null) {
+                    userId = userService.getUserByEmail(claims.getSubject()).getId();
+                }
+                refreshTokenService.revokeAllSessions(userId);
+                revocationList.revokeAllForUser(userId);
+            }
+            return ResponseEntity.ok(new ApiResponse(
+                    true,
+                    "Logged out of all sessions",
+                    LocalDateTime.now(),
+                    null
+            ));
+        } catch (Exception e) {
+            log.error("Logout of all sessions failed: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse(false, e.getMessage(), LocalDateTime.now(), null));
+        }
+    }
+
+    private ResponseEntity<ApiResponse> revokedTokenResponse() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new ApiResponse(false, "Token has been revoked", LocalDateTime.now(), null));
+    }
 }
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -49,11 +50,20 @@ public class BookingController {
     }
 
     @GetMapping("/user")
-    public ResponseEntity<Page<BookingDTO>> getUserBookings(
+    public ResponseEntity<?> getUserBookings(
+            @RequestParam(required = false) String cursor,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC)
             Pageable pageable,
             Authentication authentication) {
-        return ResponseEntity.ok(bookingService.getUserBookings(authentication, pageable));
+        // Any cursor parameter, even an empty one, switches to cursor pagination
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getUserBookings(authentication, pageable));
+        }
+        try {
+            return ResponseEntity.ok(bookingService.getUserBookings(authentication, cursor, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @GetMapping("/all")
@@ -0,0 +1,37 @@
+package com.travel.management.controller;
+
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.dto.CacheStatsDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+public class CacheAdminController {
+    private final CacheStatsRegistry cacheStatsRegistry;
+
+    public CacheAdminController(CacheStatsRegistry cacheStatsRegistry) {
+        this.cacheStatsRegistry = cacheStatsRegistry;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = cacheStatsRegistry.getCaches().entrySet().stream()
+                .map(entry -> CacheStatsDTO.builder()
+                        .name(entry.getKey())
+                        .size(entry.getValue().size())
+                        .maxSize(entry.getValue().getMaxSize())
+                        .hits(entry.getValue().getHits())
+                        .misses(entry.getValue().getMisses())
+                        .evictions(entry.getValue().getEvictions())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,39 @@
+package com.travel.management.controller;
+
+import com.travel.management.service.CatalogFeedService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+    private static final int MAX_CHANGES = 500;
+
+    private final CatalogFeedService catalogFeedService;
+
+    public CatalogController(CatalogFeedService catalogFeedService) {
+        this.catalogFeedService = catalogFeedService;
+    }
+
+    @GetMapping("/changes")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) String consumer,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        try {
+            return ResponseEntity.ok(catalogFeedService.getChanges(
+                    since, consumer, Math.max(1, Math.min(limit, MAX_CHANGES)), authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+}
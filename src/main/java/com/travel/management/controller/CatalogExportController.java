@@ -0,0 +1,73 @@
+package com.travel.management.controller;
+
+import com.travel.management.service.CatalogExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/admin/export")
+public class CatalogExportController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final CatalogExportService catalogExportService;
+
+    public CatalogExportController(CatalogExportService catalogExportService) {
+        this.catalogExportService = catalogExportService;
+    }
+
+    @GetMapping("/trips")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTrips(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        CatalogExportService.Format exportFormat = parseFormat(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return download("trips", exportFormat, gzip,
+                output -> catalogExportService.exportTrips(output, exportFormat, gzip));
+    }
+    @GetMapping("/packages")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPackages(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        CatalogExportService.Format exportFormat = parseFormat(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return download("packages", exportFormat, gzip,
+                output -> catalogExportService.exportPackages(output, exportFormat, gzip));
+    }
+
+    private static CatalogExportService.Format parseFormat(String format) {
+        try {
+            return CatalogExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(String name, CatalogExportService.Format format,
+                                                                  boolean gzip, StreamingResponseBody body) {
+        boolean csv = format == CatalogExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(gzip ? APPLICATION_GZIP : csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : ""))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -3,38 +3,66 @@ package com.travel.management.controller;
 import com.travel.management.dto.PackageCreateRequest;
 import com.travel.management.dto.PackageDTO;
 import com.travel.management.dto.PackageUpdateRequest;
+import com.travel.management.dto.ResourceVersion;
 import com.travel.management.model.Package;
+import com.travel.management.service.ItineraryService;
 import com.travel.management.service.PackageService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RestController
 @RequestMapping("/api/packages")
 public class PackageController {
+    // Responses depend on the caller's role: clients may keep them but must revalidate
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final PackageService packageService;
+    private final ItineraryService itineraryService;
 
-    public PackageController(PackageService packageService) {
+    public PackageController(PackageService packageService, ItineraryService itineraryService) {
         this.packageService = packageService;
+        this.itineraryService = itineraryService;
     }
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<PackageDTO>> getAllPackages(
+    public ResponseEntity<?> getAllPackages(
+            @RequestParam(required = false) String cursor,
             @PageableDefault(size = 15) Pageable pageable,
-            Authentication authentication) {
-        return ResponseEntity.ok(packageService.getAllPackages(pageable, authentication));
+            Authentication authentication,
+            WebRequest request) {
+        // Any cursor parameter, even an empty one, switches to cursor pagination
+        if (cursor == null) {
+            // No Last-Modified here: deleting a package does not move the latest update time
+            ResourceVersion version = packageService.getPackagesVersion(authentication);
+            if (request.checkNotModified(version.etag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(version.etag())
+                    .cacheControl(REVALIDATE)
+                    .body(packageService.getAllPackages(pageable, authentication));
+        }
+        try {
+            return ResponseEntity.ok(packageService.getAllPackages(cursor, pageable, authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
     @GetMapping("/search")
     @PreAuthorize("isAuthenticated()")
@@ -80,9 +108,29 @@ public class PackageController {
     @GetMapping("/{packageId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<PackageDTO> getPackageById(
+            @PathVariable Long packageId,
+            Authentication authentication,
+            WebRequest request) {
+        ResourceVersion version = packageService.getPackageVersion(packageId, authentication);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .cacheControl(REVALIDATE)
+                .body(packageService.getPackageById(packageId, authentication));
+    }
+    @GetMapping("/{packageId}/itinerary")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getPackageItinerary(
             @PathVariable Long packageId,
             Authentication authentication) {
-        return ResponseEntity.ok(packageService.getPackageById(packageId, authentication));
+        try {
+            return ResponseEntity.ok(itineraryService.planPackage(packageId, authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
     @GetMapping("/{packageId}/availability")
     public ResponseEntity<Boolean> checkPackageAvailability(
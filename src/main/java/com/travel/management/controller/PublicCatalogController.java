@@ -0,0 +1,99 @@
+package com.travel.management.controller;
+
+import com.travel.management.exception.ResourceNotFoundException;
+import com.travel.management.service.PackageService;
+import com.travel.management.service.PublicCatalogCache;
+import com.travel.management.service.TripService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Anonymous read-only view of the catalog: available trips and public
+ * packages only. Responses do not depend on the caller, so they are served
+ * from a shared cache and marked cacheable for browsers and CDNs. Admins and
+ * managers keep using {@code /api/trips} and {@code /api/packages}.
+ */
+@RestController
+@RequestMapping("/api/public")
+public class PublicCatalogController {
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final TripService tripService;
+    private final PackageService packageService;
+    private final PublicCatalogCache catalogCache;
+    private final CacheControl cacheControl;
+
+    public PublicCatalogController(TripService tripService,
+                                   PackageService packageService,
+                                   PublicCatalogCache catalogCache,
+                                   @Value("${catalog.public.max-age:60}") long maxAgeSeconds) {
+        this.tripService = tripService;
+        this.packageService = packageService;
+        this.catalogCache = catalogCache;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    @GetMapping("/trips")
+    public ResponseEntity<?> getTrips(@PageableDefault(size = 15) Pageable pageable, WebRequest request) {
+        Pageable page = capped(pageable);
+        return respond("trips:" + pageKey(page), () -> new PagedModel<>(tripService.getPublicTrips(page)), request);
+    }
+
+    @GetMapping("/trips/{tripId}")
+    public ResponseEntity<?> getTrip(@PathVariable Long tripId, WebRequest request) {
+        return respond("trip:" + tripId, () -> tripService.getPublicTrip(tripId), request);
+    }
+
+    @GetMapping("/packages")
+    public ResponseEntity<?> getPackages(@PageableDefault(size = 15) Pageable pageable, WebRequest request) {
+        Pageable page = capped(pageable);
+        return respond("packages:" + pageKey(page),
+                () -> new PagedModel<>(packageService.getPublicPackages(page)), request);
+    }
+
+    @GetMapping("/packages/{packageId}")
+    public ResponseEntity<?> getPackage(@PathVariable Long packageId, WebRequest request) {
+        return respond("package:" + packageId, () -> packageService.getPublicPackage(packageId), request);
+    }
+
+    private ResponseEntity<?> respond(String key, Supplier<Object> loader, WebRequest request) {
+        PublicCatalogCache.CachedResponse response;
+        try {
+            response = catalogCache.get(key, loader);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("message", e.getMessage()));
+        }
+        if (request.checkNotModified(response.etag())) {
+            // checkNotModified has already set the 304 status and the ETag header
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(response.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.body());
+    }
+
+    private Pageable capped(Pageable pageable) {
+        return pageable.getPageSize() > MAX_PAGE_SIZE
+                ? PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE,
+                        pageable.getSort())
+                : pageable;
+    }
+
+    private String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
+}
@@ -15,6 +15,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -27,13 +29,22 @@ public class ReviewController {
     }
 
     @GetMapping("/items/{itemId}")
-    public ResponseEntity<Page<ReviewDTO>> getReviewsForItem(
+    public ResponseEntity<?> getReviewsForItem(
             @PathVariable Long itemId,
             @RequestParam(name = "type") String type,
+            @RequestParam(required = false) String cursor,
             @PageableDefault(size = 3, sort = "rating", direction = Sort.Direction.DESC)
             Pageable pageable) {
         ReviewCreateRequest.ReviewType reviewType = ReviewCreateRequest.ReviewType.valueOf(type.toUpperCase());
-        return ResponseEntity.ok(reviewService.getReviewsForItem(itemId, reviewType, pageable));
+        // Any cursor parameter, even an empty one, switches to cursor pagination
+        if (cursor == null) {
+            return ResponseEntity.ok(reviewService.getReviewsForItem(itemId, reviewType, pageable));
+        }
+        try {
+            return ResponseEntity.ok(reviewService.getReviewsForItem(itemId, reviewType, cursor, pageable));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     @GetMapping("/users/{userId}")
@@ -1,51 +1,123 @@
 package com.travel.management.controller;
 
+import com.travel.management.dto.NearbyTripDTO;
+import com.travel.management.dto.ResourceVersion;
 import com.travel.management.dto.TripCreateRequest;
 import com.travel.management.dto.TripDTO;
+import com.travel.management.dto.TripImportReport;
+import com.travel.management.dto.TripSearchResponse;
 import com.travel.management.dto.TripUpdateRequest;
+import com.travel.management.service.ItineraryService;
+import com.travel.management.service.TripImportService;
 import com.travel.management.service.TripService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 
 @RestController
 @RequestMapping("/api/trips")
 public class TripController {
+    private static final int MAX_NEARBY_RESULTS = 200;
+    // Responses depend on the caller's role: clients may keep them but must revalidate
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final TripService tripService;
+    private final TripImportService tripImportService;
+    private final ItineraryService itineraryService;
 
-    public TripController(TripService tripService) {
+    public TripController(TripService tripService, TripImportService tripImportService,
+                          ItineraryService itineraryService) {
         this.tripService = tripService;
+        this.tripImportService = tripImportService;
+        this.itineraryService = itineraryService;
     }
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<TripDTO>> getAllTrips(
+    public ResponseEntity<?> getAllTrips(
+            @RequestParam(required = false) String cursor,
             @PageableDefault(size = 15) Pageable pageable,
-            Authentication authentication) {
-        return ResponseEntity.ok(tripService.getAllTrips(pageable, authentication));
+            Authentication authentication,
+            WebRequest request) {
+        // Any cursor parameter, even an empty one, switches to cursor pagination
+        if (cursor == null) {
+            // No Last-Modified here: deleting a trip does not move the latest update time
+            ResourceVersion version = tripService.getTripsVersion(authentication);
+            if (request.checkNotModified(version.etag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(version.etag())
+                    .cacheControl(REVALIDATE)
+                    .body(tripService.getAllTrips(pageable, authentication));
+        }
+        try {
+            return ResponseEntity.ok(tripService.getAllTrips(cursor, pageable, authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
     @GetMapping("/search")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<TripDTO>> searchTrips(
+    public ResponseEntity<?> searchTrips(
+            @RequestParam(name = "q", required = false) String query,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String destination,
             @RequestParam(required = false) String activity,
             @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean facets,
             @PageableDefault(size = 15) Pageable pageable,
             Authentication authentication) {
-        return ResponseEntity.ok(tripService.searchTrips(
-                title, destination, activity, category, authentication, pageable));
+        TripSearchResponse response = tripService.searchTrips(
+                query, title, destination, activity, category, facets, authentication, pageable);
+        // Without facets the response stays the plain page it has always been
+        return ResponseEntity.ok(facets ? response : response.getTrips());
+    }
+    @GetMapping("/nearby")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getNearbyTrips(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        try {
+            List<NearbyTripDTO> trips = tripService.findNearbyTrips(
+                    lat, lng, radiusKm, Math.min(limit, MAX_NEARBY_RESULTS), authentication);
+            return ResponseEntity.ok(trips);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+    @GetMapping("/itinerary")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> planItinerary(
+            @RequestParam List<Long> ids,
+            Authentication authentication) {
+        try {
+            return ResponseEntity.ok(itineraryService.planTrips(ids, authentication));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
@@ -58,6 +130,17 @@ public class TripController {
                 .status(HttpStatus.CREATED)
                 .body(trip);
     }
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<TripImportReport> importTrips(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body,
+            Authentication authentication) throws IOException {
+        TripImportService.Format format = TEXT_CSV.isCompatibleWith(contentType)
+                ? TripImportService.Format.CSV
+                : TripImportService.Format.NDJSON;
+        return ResponseEntity.ok(tripImportService.importTrips(body, format, authentication));
+    }
     @PutMapping(value = "/{tripId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public ResponseEntity<TripDTO> updateTrip(
@@ -79,7 +162,16 @@ public class TripController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<TripDTO> getTripById(
             @PathVariable Long tripId,
-            Authentication authentication) {
-        return ResponseEntity.ok(tripService.getTripById(tripId, authentication));
+            Authentication authentication,
+            WebRequest request) {
+        ResourceVersion version = tripService.getTripVersion(tripId, authentication);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(version.etag())
+                .lastModified(version.lastModified())
+                .cacheControl(REVALIDATE)
+                .body(tripService.getTripById(tripId, authentication));
     }
 }
@@ -0,0 +1,19 @@
+package com.travel.management.dto;
+
+import com.travel.management.model.CatalogChange;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One item of the catalog change feed. {@code data} holds the item as the
+ * caller sees it for an upsert and is null for a delete.
+ */
+@Data
+@Builder
+public class CatalogChangeDTO {
+    private long sequence;
+    private CatalogChange.ItemType type;
+    private Long id;
+    private CatalogChange.Operation operation;
+    private Object data;
+}
@@ -0,0 +1,19 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A batch of the catalog change feed in commit order. Pass {@code nextCursor}
+ * back as {@code since} to continue; while {@code hasMore} is set the next
+ * batch is already waiting.
+ */
+@Data
+@Builder
+public class CatalogChangesDTO {
+    private List<CatalogChangeDTO> changes;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,15 @@
+package com.travel.management.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate over the rows of a listing. Any insert, update or delete among
+ * them changes at least one of the values.
+ */
+public record CollectionStamp(Long count, Long versionSum, Long maxId, LocalDateTime lastModified) {
+
+    public String tag() {
+        return count + "." + (versionSum == null ? 0 : versionSum) + "." + (maxId == null ? 0 : maxId)
+                + "." + (lastModified == null ? "" : lastModified);
+    }
+}
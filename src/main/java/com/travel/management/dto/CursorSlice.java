@@ -0,0 +1,19 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One slice of a cursor-paginated listing. Pass {@code nextCursor} back as the
+ * {@code cursor} parameter to get the following slice; it is null on the last one.
+ */
+@Data
+@Builder
+public class CursorSlice<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,48 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A day-by-day visiting order for a set of trips. Trips without coordinates
+ * cannot be routed and are only listed in {@code unroutedTripIds}.
+ * {@code complete} is false when the planner ran out of time before it could
+ * improve the routes any further.
+ */
+@Data
+@Builder
+public class ItineraryDTO {
+    private List<Day> days;
+    private double totalDistanceKm;
+    private List<Long> unroutedTripIds;
+    private boolean complete;
+
+    @Data
+    @Builder
+    public static class Day {
+        // counting from 1
+        private int day;
+        // null for a day of trips without opening hours
+        private LocalDate date;
+        private double distanceKm;
+        private List<Stop> stops;
+    }
+
+    @Data
+    @Builder
+    public static class Stop {
+        private Long tripId;
+        private String title;
+        private Double latitude;
+        private Double longitude;
+        // great-circle distance from the previous stop of the day
+        private double distanceFromPreviousKm;
+        // earliest arrival, null on a day without opening hours
+        private LocalDateTime arrival;
+        private boolean withinOpeningHours;
+    }
+}
@@ -8,4 +8,6 @@ import lombok.Data;
 public class LoginRequest {
     private String email;
     private String password;
+    // Optional; logging in again from the same device replaces its previous session
+    private String deviceId;
 }
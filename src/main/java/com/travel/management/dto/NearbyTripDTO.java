@@ -0,0 +1,12 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class NearbyTripDTO {
+    private TripDTO trip;
+    // great-circle distance from the requested point
+    private double distanceKm;
+}
@@ -0,0 +1,33 @@
+package com.travel.management.dto;
+
+import com.travel.management.model.Trip;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * What a package derives from its trips. Built with one grouped query when a
+ * trip changes, or from the trips in hand when the package itself is written.
+ */
+public record PackageAggregates(Long packageId,
+                                Long tripCount,
+                                Long totalDurationDays,
+                                Double tripPriceTotal,
+                                LocalDateTime earliestStart,
+                                LocalDateTime latestEnd,
+                                Long availableTripCount) {
+
+    public static PackageAggregates of(Long packageId, Collection<Trip> trips) {
+        return new PackageAggregates(
+                packageId,
+                (long) trips.size(),
+                trips.stream().map(Trip::getDurationDays).filter(Objects::nonNull).mapToLong(Integer::longValue).sum(),
+                trips.stream().map(Trip::getPrice).filter(Objects::nonNull).mapToDouble(Double::doubleValue).sum(),
+                trips.stream().map(Trip::getStartTime).filter(Objects::nonNull)
+                        .min(LocalDateTime::compareTo).orElse(null),
+                trips.stream().map(Trip::getEndTime).filter(Objects::nonNull)
+                        .max(LocalDateTime::compareTo).orElse(null),
+                trips.stream().filter(Trip::isAvailable).count());
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 
 @Data
@@ -19,6 +20,12 @@ public class PackageBasicDTO implements PackageDTO {
     private Double price;
     private String category;
     private String totalDuration;
+    private Integer totalDurationDays;
+    private Double tripPriceTotal;
+    private LocalDateTime earliestStart;
+    private LocalDateTime latestEnd;
+    private Integer tripCount;
+    private Integer availableTripCount;
     private Package.PackageStatus status;
     private Set<TripBasicDTO> trips;
 }
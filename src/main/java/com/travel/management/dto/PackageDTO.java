@@ -14,6 +14,12 @@ public interface PackageDTO {
     Double getPrice();
     String getCategory();
     String getTotalDuration();
+    Integer getTotalDurationDays();
+    Double getTripPriceTotal();
+    LocalDateTime getEarliestStart();
+    LocalDateTime getLatestEnd();
+    Integer getTripCount();
+    Integer getAvailableTripCount();
     Package.PackageStatus getStatus();
     Set<TripBasicDTO> getTrips();
 }
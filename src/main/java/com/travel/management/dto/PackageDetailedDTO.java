@@ -17,8 +17,17 @@ public class PackageDetailedDTO implements PackageDTO {
     private Double price;
     private String category;
     private String totalDuration;
+    private Integer totalDurationDays;
+    private Double tripPriceTotal;
+    private LocalDateTime earliestStart;
+    private LocalDateTime latestEnd;
+    private Integer tripCount;
+    private Integer availableTripCount;
     private Package.PackageStatus status;
     private Set<TripBasicDTO> trips;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    // send back in PackageUpdateRequest.version to guard against lost updates
+    private Long version;
     private UserSummaryDTO createdBy;
 }
@@ -0,0 +1,25 @@
+package com.travel.management.dto;
+
+import com.travel.management.model.Package;
+
+import java.time.LocalDateTime;
+
+/**
+ * One package-trip pair of the package export, ordered by package so the
+ * rows of a package arrive together. {@code tripId} is null for a package
+ * without trips.
+ */
+public record PackageExportRow(Long id,
+                               String name,
+                               String description,
+                               Double price,
+                               String category,
+                               String totalDuration,
+                               Package.PackageStatus status,
+                               LocalDateTime createdAt,
+                               LocalDateTime updatedAt,
+                               Long version,
+                               Long creatorId,
+                               String creatorEmail,
+                               Long tripId) {
+}
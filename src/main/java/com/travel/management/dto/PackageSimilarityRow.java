@@ -0,0 +1,14 @@
+package com.travel.management.dto;
+
+import com.travel.management.model.Package;
+
+/**
+ * One package-trip pair of what the related-package index scores packages
+ * on. {@code tripId} is null for a package without trips.
+ */
+public record PackageSimilarityRow(Long packageId,
+                                   String category,
+                                   Double price,
+                                   Package.PackageStatus status,
+                                   Long tripId) {
+}
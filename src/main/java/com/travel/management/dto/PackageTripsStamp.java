@@ -0,0 +1,16 @@
+package com.travel.management.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of a package together with a {@link CollectionStamp}-style
+ * aggregate over its trips, read in one query. Adding, removing, swapping or
+ * editing a trip of the package changes at least one of the values.
+ */
+public record PackageTripsStamp(Long packageVersion, Boolean visible, Long tripCount, Long tripVersionSum,
+                                Long maxTripId, LocalDateTime lastModified) {
+
+    public String tag() {
+        return packageVersion + "." + new CollectionStamp(tripCount, tripVersionSum, maxTripId, lastModified).tag();
+    }
+}
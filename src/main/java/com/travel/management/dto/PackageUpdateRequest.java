@@ -20,4 +20,6 @@ public class PackageUpdateRequest {
     private String totalDuration;
     private Package.PackageStatus status;
     private Set<Long> tripIds;
+    // the version the client last read; the update is rejected with 409 when the package changed since
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PriceBucketCountDTO {
+    private String label;
+    // inclusive lower bound
+    private Double min;
+    // exclusive upper bound, null for the last bucket
+    private Double max;
+    private long count;
+}
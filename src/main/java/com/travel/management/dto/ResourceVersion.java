@@ -0,0 +1,17 @@
+package com.travel.management.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validators for a conditional GET. The ETag is weak because the body also
+ * carries data that does not bump the version, such as the creator's name.
+ * {@code lastModified} is -1 when unknown.
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    public static ResourceVersion of(String tag, LocalDateTime lastModified) {
+        return new ResourceVersion("W/\"" + tag + "\"", lastModified == null ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
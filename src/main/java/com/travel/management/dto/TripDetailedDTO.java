@@ -26,6 +26,9 @@ public class TripDetailedDTO implements TripDTO {
     private Double longitude;
     private String imageUrl;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    // send back in TripUpdateRequest.version to guard against lost updates
+    private Long version;
     private UserSummaryDTO createdBy;
     private boolean available;
 
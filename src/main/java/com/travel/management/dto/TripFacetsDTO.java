@@ -0,0 +1,19 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class TripFacetsDTO {
+    // activity label -> matching trips, most common first
+    private Map<String, Long> activities;
+    private List<PriceBucketCountDTO> priceBuckets;
+    private long available;
+    private long unavailable;
+    private long openNow;
+    private long closedNow;
+}
@@ -0,0 +1,28 @@
+package com.travel.management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk trip import. Only the first errors are listed;
+ * {@code failed} counts them all.
+ */
+@Data
+@Builder
+public class TripImportReport {
+    private int imported;
+    private int failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // line of the input the record starts on, counting from 1
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,50 @@
+package com.travel.management.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One trip of a bulk import, a CSV record or an NDJSON line. Same rules as
+ * {@link TripCreateRequest}, plus the coordinates used by nearby search.
+ */
+@Data
+@NoArgsConstructor
+public class TripImportRow {
+    @NotBlank(message = "Title is required")
+    private String title;
+
+    @NotBlank(message = "Destination is required")
+    private String destination;
+
+    @NotBlank(message = "Description is required")
+    private String description;
+
+    @PositiveOrZero(message = "Price must be zero or positive")
+    private Double price;
+
+    private String duration;
+
+    @Pattern(regexp = "^https?://maps\\.google\\.com/.*|^https?://goo\\.gl/maps/.*",
+            message = "Please provide a valid Google Maps link")
+    private String locationLink;
+
+    private String tips;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private String activity;
+
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+}
@@ -0,0 +1,85 @@
+package com.travel.management.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a trip listing needs, selected in one query together with the
+ * creator summary instead of hydrating {@code Trip} and its eager
+ * {@code createdBy} user with roles.
+ */
+public record TripListRow(Long id,
+                          String title,
+                          String address,
+                          String description,
+                          Double price,
+                          String duration,
+                          String locationLink,
+                          String tips,
+                          LocalDateTime startTime,
+                          LocalDateTime endTime,
+                          String activity,
+                          Double latitude,
+                          Double longitude,
+                          String image,
+                          boolean available,
+                          LocalDateTime createdAt,
+                          LocalDateTime updatedAt,
+                          Long version,
+                          Long creatorId,
+                          String creatorFirstName,
+                          String creatorLastName,
+                          String creatorEmail) {
+
+    public TripDTO toDTO(boolean detailed) {
+        return detailed ? toDetailedDTO() : toBasicDTO();
+    }
+
+    public TripBasicDTO toBasicDTO() {
+        return TripBasicDTO.builder()
+                .id(id)
+                .title(title)
+                .destination(address)
+                .description(description)
+                .price(price)
+                .duration(duration)
+                .locationLink(locationLink)
+                .tips(tips)
+                .startTime(startTime)
+                .endTime(endTime)
+                .activity(activity)
+                .latitude(latitude)
+                .longitude(longitude)
+                .imageUrl(image)
+                .available(available)
+                .build();
+    }
+
+    public TripDetailedDTO toDetailedDTO() {
+        return TripDetailedDTO.builder()
+                .id(id)
+                .title(title)
+                .destination(address)
+                .description(description)
+                .price(price)
+                .duration(duration)
+                .locationLink(locationLink)
+                .tips(tips)
+                .startTime(startTime)
+                .endTime(endTime)
+                .activity(activity)
+                .latitude(latitude)
+                .longitude(longitude)
+                .imageUrl(image)
+                .available(available)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .version(version)
+                .createdBy(creatorId == null ? null : UserSummaryDTO.builder()
+                        .id(creatorId)
+                        .firstName(creatorFirstName)
+                        .lastName(creatorLastName)
+                        .email(creatorEmail)
+                        .build())
+                .build();
+    }
+}
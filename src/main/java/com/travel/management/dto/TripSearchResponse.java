@@ -0,0 +1,12 @@
+package com.travel.management.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+@Data
+@Builder
+public class TripSearchResponse {
+    private Page<TripDTO> trips;
+    private TripFacetsDTO facets;
+}
@@ -31,4 +31,6 @@ public class TripUpdateRequest {
     private LocalDateTime endTime;
     private String activity;
     private Boolean available;
+    // the version the client last read; the update is rejected with 409 when the trip changed since
+    private Long version;
 }
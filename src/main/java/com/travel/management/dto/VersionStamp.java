@@ -0,0 +1,10 @@
+package com.travel.management.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version columns of a single trip or package, read without loading the
+ * entity so an unchanged resource can be answered with 304.
+ */
+public record VersionStamp(Long version, LocalDateTime updatedAt, Boolean visible) {
+}
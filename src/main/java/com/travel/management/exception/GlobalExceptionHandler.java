@@ -2,6 +2,7 @@ package com.travel.management.exception;
 
 import com.travel.management.dto.ApiResponse;
 import org.springframework.http.HttpStatus;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -58,6 +59,17 @@ public class GlobalExceptionHandler {
         ApiResponse response = new ApiResponse(false, ex.getMessage(), LocalDateTime.now(), null);
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ApiResponse response = new ApiResponse(false,
+                "This item was changed by someone else. Reload it and try again", LocalDateTime.now(), null);
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+    @ExceptionHandler(ChangeFeedExpiredException.class)
+    public ResponseEntity<ApiResponse> handleChangeFeedExpiredException(ChangeFeedExpiredException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage(), LocalDateTime.now(), null);
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ApiResponse> handleBadCredentialsException(BadCredentialsException ex) {
         ApiResponse response = new ApiResponse(false, "Invalid email or password", LocalDateTime.now(), null);
@@ -0,0 +1,40 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Every access token of a user issued up to a point in time is revoked. One row
+ * per user; a later logout of all sessions moves the cutoff forward. Kept until
+ * the last token it covers would have expired.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "access_token_cutoffs",
+        indexes = {
+                @Index(name = "ix_access_token_cutoffs_expires_at", columnList = "expires_at"),
+                @Index(name = "ix_access_token_cutoffs_revoked_at", columnList = "revoked_at")
+        })
+public class AccessTokenCutoff {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Epoch millis, compared against the millisecond issue time the token carries
+    @Column(name = "issued_up_to_ms", nullable = false)
+    private long issuedUpToMs;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -14,10 +14,14 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings",
+        indexes = @Index(name = "ix_bookings_user_created_at", columnList = "user_id, created_at, booking_id"))
 public class Booking {
         @Id
-        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @GeneratedValue(strategy = GenerationType.TABLE, generator = "bookings_ids")
+        @TableGenerator(name = "bookings_ids", table = IdGenerators.TABLE,
+                pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+                pkColumnValue = IdGenerators.BOOKINGS, allocationSize = IdGenerators.ALLOCATION_SIZE)
         @Column(name = "booking_id")
         private Long id;
 
@@ -0,0 +1,80 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only catalog change log. Entries are numbered in
+ * commit order by {@link CatalogChangeSequence}; the body of an upsert is not
+ * stored, readers load the item's current state.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "catalog_changes")
+public class CatalogChange implements Persistable<Long> {
+    @Id
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ItemType itemType;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean isNew = true;
+
+    public CatalogChange(Long sequence, ItemType itemType, Long itemId, Operation operation,
+                         LocalDateTime changedAt) {
+        this.sequence = sequence;
+        this.itemType = itemType;
+        this.itemId = itemId;
+        this.operation = operation;
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public Long getId() {
+        return sequence;
+    }
+
+    // The sequence is assigned, not generated: without this every save would select first to tell
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    public enum ItemType {
+        TRIP,
+        PACKAGE
+    }
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+}
@@ -0,0 +1,32 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Single-row counter for {@link CatalogChange} numbers. Writers lock the row
+ * until they commit, so numbers become visible in the order they were handed
+ * out and a reader that has seen number n will never later find a smaller one.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "catalog_change_sequence")
+public class CatalogChangeSequence {
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private long lastSequence;
+
+    // Entries up to and including this number have been compacted away
+    @Column(nullable = false)
+    private long compactedThrough;
+}
@@ -0,0 +1,32 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last change-log position a client has confirmed, by asking for the changes
+ * after it. Compaction never removes entries a recently seen consumer still needs.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "catalog_consumers",
+        indexes = @Index(name = "ix_catalog_consumers_last_seen_at", columnList = "last_seen_at"))
+public class CatalogConsumer {
+    @Id
+    @Column(length = 191)
+    private String consumerKey;
+
+    @Column(nullable = false)
+    private long position;
+
+    @Column(nullable = false)
+    private LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,23 @@
+package com.travel.management.model;
+
+/**
+ * Shared settings of the pooled table id generators. Ids are handed out in
+ * blocks of {@link #ALLOCATION_SIZE}, so Hibernate knows them before the
+ * insert and can batch inserts, which identity columns rule out. A table is
+ * used rather than sequences because MySQL has none.
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "generator_name";
+    public static final String VALUE_COLUMN = "next_val";
+    // keep in step with hibernate.jdbc.batch_size
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String TRIPS = "trips";
+    public static final String PACKAGES = "packages";
+    public static final String BOOKINGS = "bookings";
+    public static final String PAYMENTS = "payments";
+
+    private IdGenerators() {
+    }
+}
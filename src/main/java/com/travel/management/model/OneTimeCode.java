@@ -0,0 +1,56 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "one_time_codes",
+        uniqueConstraints = @UniqueConstraint(name = "ux_one_time_codes_email_purpose",
+                columnNames = {"email", "purpose"}),
+        indexes = @Index(name = "ix_one_time_codes_expires_at", columnList = "expires_at"))
+public class OneTimeCode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "one_time_code_id")
+    private Long id;
+
+    // Keyed by email so sending and checking a code never has to load the user
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Purpose purpose;
+
+    @Column(nullable = false, length = 6)
+    private String code;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+
+    public enum Purpose {
+        EMAIL_VERIFICATION,
+        PASSWORD_RESET
+    }
+}
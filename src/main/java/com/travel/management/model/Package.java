@@ -8,6 +8,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -18,10 +19,14 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "packages")
+@Table(name = "packages",
+        indexes = @Index(name = "ix_packages_created_at_id", columnList = "created_at, id"))
 public class Package {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "packages_ids")
+    @TableGenerator(name = "packages_ids", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.PACKAGES, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Package name cannot be blank")
@@ -38,6 +43,19 @@ public class Package {
 
     private String totalDuration;
 
+    // Aggregates over the trips, recomputed by PackageAggregateService whenever the trips change
+    private Integer totalDurationDays;
+
+    private Double tripPriceTotal;
+
+    private LocalDateTime earliestStart;
+
+    private LocalDateTime latestEnd;
+
+    private Integer tripCount;
+
+    private Integer availableTripCount;
+
     @Enumerated(EnumType.STRING)
     private PackageStatus status;
 
@@ -45,7 +63,16 @@ public class Package {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Optimistic lock; also what the ETags of this package are derived from
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Listings fetch the creators of a whole page at once, see PackageRepository.fetchTripsAndCreators
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
     private User createdBy;
 
@@ -17,7 +17,10 @@ import java.util.Random;
 @AllArgsConstructor
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payments_ids")
+    @TableGenerator(name = "payments_ids", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.PAYMENTS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     @Column(name = "payment_id")
     private Long id;
 
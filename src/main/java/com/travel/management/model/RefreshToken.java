@@ -0,0 +1,68 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_tokens",
+        indexes = {
+                @Index(name = "ux_refresh_tokens_hash", columnList = "token_hash", unique = true),
+                @Index(name = "ix_refresh_tokens_user_session", columnList = "user_id, session_id"),
+                @Index(name = "ix_refresh_tokens_expires_at", columnList = "expires_at")
+        })
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "refresh_token_id")
+    private Long id;
+
+    // SHA-256 of the token handed to the client; the raw token is never stored
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    // Stays the same across rotations, one per device login
+    @Column(name = "session_id", nullable = false, length = 36)
+    private String sessionId;
+
+    @Column(name = "device_id")
+    private String deviceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    // Id of the token this one was rotated into; kept as a plain column so expired rows can be swept in any order
+    @Column(name = "replaced_by_id")
+    private Long replacedById;
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+
+    public boolean isRevoked() {
+        return revokedAt != null;
+    }
+}
@@ -17,7 +17,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews",
+        indexes = {
+                @Index(name = "ix_reviews_trip_rating", columnList = "trip_id, rating, review_id"),
+                @Index(name = "ix_reviews_package_rating", columnList = "package_id, rating, review_id")
+        })
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,39 @@
+package com.travel.management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single access token revoked before it expired, kept until it would have
+ * expired anyway.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "revoked_access_tokens",
+        indexes = {
+                @Index(name = "ix_revoked_access_tokens_expires_at", columnList = "expires_at"),
+                @Index(name = "ix_revoked_access_tokens_revoked_at", columnList = "revoked_at")
+        })
+public class RevokedAccessToken {
+    // The jti claim of the token
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -1,11 +1,14 @@
 package com.travel.management.model;
 
+import com.travel.management.Utils.TripDurations;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -16,10 +19,14 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "trips")
+@Table(name = "trips",
+        indexes = @Index(name = "ix_trips_created_at_id", columnList = "created_at, id"))
 public class Trip {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "trips_ids")
+    @TableGenerator(name = "trips_ids", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = IdGenerators.TRIPS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false,name = "name")
@@ -37,6 +44,11 @@ public class Trip {
     @Column
     private String duration;
 
+    // Whole days read from duration by setDuration, null when the text has no amount
+    @Setter(AccessLevel.NONE)
+    @Column(name = "duration_days")
+    private Integer durationDays;
+
     @Column
     private String locationLink;
 
@@ -65,7 +77,15 @@ public class Trip {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Optimistic lock; also what the ETags of this trip are derived from
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
     private User createdBy;
 
@@ -74,4 +94,9 @@ public class Trip {
 
     @ManyToMany(mappedBy = "trips")
     private Set<Package> packages = new HashSet<>();
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+        this.durationDays = TripDurations.parseDays(duration);
+    }
 }
@@ -50,46 +50,36 @@ public class User {
     )
     private Set<Role> roles = new HashSet<>(); //set as we need it to be unique
     private boolean enabled;
-    @Column(name = "verification")
-    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
-    private long verification;
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private List<Booking> bookings;
-    private String refreshToken;
-    private LocalDateTime refreshTokenExpiry;
-    private String resetPasswordToken;
-    private LocalDateTime resetPasswordTokenExpiry;
-    private int resetPasswordAttempts;
-    private LocalDateTime verificationCodeExpiry;
 
 
     private int failedLoginAttempts = 0;
     private LocalDateTime lockoutTime;
     private String lastPassword;
 
+    // Bumped whenever roles or credentials change so older access tokens stop being trusted on their claims
+    @Column(name = "security_epoch", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private long securityEpoch = 0;
+
     public boolean isAccountNonLocked() {
-        if (lockoutTime != null && lockoutTime.isAfter(LocalDateTime.now())) {
-            return false; // Account is locked
-        }
-        return resetPasswordAttempts < 6; // Your existing check
-    }
-    public boolean isTokenValid(String token) {
-        return refreshToken != null &&
-                refreshToken.equals(token) &&
-                refreshTokenExpiry.isAfter(LocalDateTime.now());
+        return lockoutTime == null || !lockoutTime.isAfter(LocalDateTime.now());
     }
 
-    public void incrementFailedAttempts() {
-        failedLoginAttempts++;
-        if (failedLoginAttempts >= 5) {
-            lockoutTime = LocalDateTime.now().plusMinutes(15);
-        }
+    // Failed attempts are counted by FailedLoginTracker; only the resulting lockout is stored
+    public void lockOut(int failedAttempts) {
+        failedLoginAttempts = failedAttempts;
+        lockoutTime = LocalDateTime.now().plusMinutes(15);
     }
     public void resetFailedAttempts() {
         failedLoginAttempts = 0;
         lockoutTime = null;
     }
+    public void bumpSecurityEpoch() {
+        securityEpoch++;
+    }
     public boolean isPasswordReused(String newPassword) {
         return lastPassword != null && lastPassword.equals(newPassword);
     }
@@ -0,0 +1,23 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.AccessTokenCutoff;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccessTokenCutoffRepository extends JpaRepository<AccessTokenCutoff, Long> {
+
+    List<AccessTokenCutoff> findByRevokedAtAfterAndExpiresAtAfter(LocalDateTime revokedAfter, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccessTokenCutoff c WHERE c.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -5,8 +5,12 @@ import com.travel.management.model.Booking;
 import com.travel.management.model.Package;
 import com.travel.management.model.Trip;
 import com.travel.management.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -57,6 +61,8 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Page<Booking> findByUserId(Long userId, Pageable pageable);
 
+    Window<Booking> findByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
     @Query("SELECT b FROM Booking b WHERE b.user.id = :userId AND b.status = :status")
     Page<Booking> findByUserIdAndStatus(
             @Param("userId") Long userId,
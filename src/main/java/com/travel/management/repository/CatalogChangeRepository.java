@@ -0,0 +1,20 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.CatalogChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    @Query("SELECT c FROM CatalogChange c WHERE c.sequence > :since ORDER BY c.sequence")
+    List<CatalogChange> findAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT c.sequence FROM CatalogChange c WHERE c.sequence <= :through ORDER BY c.sequence")
+    List<Long> findSequencesThrough(@Param("through") long through, Pageable pageable);
+}
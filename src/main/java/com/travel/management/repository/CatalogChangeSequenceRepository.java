@@ -0,0 +1,23 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.CatalogChangeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogChangeSequenceRepository extends JpaRepository<CatalogChangeSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CatalogChangeSequence s WHERE s.id = :id")
+    Optional<CatalogChangeSequence> findForUpdate(@Param("id") Long id);
+
+    // Read from the database, not the persistence context, to see a compaction committed meanwhile
+    @Query("SELECT s.compactedThrough FROM CatalogChangeSequence s WHERE s.id = :id")
+    Optional<Long> findCompactedThrough(@Param("id") Long id);
+}
@@ -0,0 +1,21 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.CatalogConsumer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CatalogConsumerRepository extends JpaRepository<CatalogConsumer, String> {
+
+    @Query("SELECT MIN(c.position) FROM CatalogConsumer c")
+    Long findMinPosition();
+
+    @Modifying
+    @Query("DELETE FROM CatalogConsumer c WHERE c.lastSeenAt < :cutoff")
+    int deleteNotSeenSince(@Param("cutoff") LocalDateTime cutoff);
+}
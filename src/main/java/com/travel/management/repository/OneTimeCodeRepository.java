@@ -0,0 +1,46 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.OneTimeCode;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OneTimeCodeRepository extends JpaRepository<OneTimeCode, Long> {
+
+    Optional<OneTimeCode> findByEmailAndPurpose(String email, OneTimeCode.Purpose purpose);
+
+    boolean existsByEmailAndPurposeAndCreatedAtAfter(String email, OneTimeCode.Purpose purpose,
+                                                     LocalDateTime createdAfter);
+
+    @Modifying
+    @Query("DELETE FROM OneTimeCode c WHERE c.email = :email AND c.purpose = :purpose")
+    int deleteByEmailAndPurpose(@Param("email") String email, @Param("purpose") OneTimeCode.Purpose purpose);
+
+    // Succeeds only for the right, unexpired code with attempts left, and uses it up in the same statement
+    @Modifying
+    @Query("DELETE FROM OneTimeCode c WHERE c.email = :email AND c.purpose = :purpose " +
+            "AND c.code = :code AND c.expiresAt > :now AND c.attempts < :maxAttempts")
+    int consume(@Param("email") String email,
+                @Param("purpose") OneTimeCode.Purpose purpose,
+                @Param("code") String code,
+                @Param("now") LocalDateTime now,
+                @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE OneTimeCode c SET c.attempts = c.attempts + 1 " +
+            "WHERE c.email = :email AND c.purpose = :purpose AND c.expiresAt > :now")
+    int incrementAttempts(@Param("email") String email,
+                          @Param("purpose") OneTimeCode.Purpose purpose,
+                          @Param("now") LocalDateTime now);
+
+    @Query("SELECT c.id FROM OneTimeCode c WHERE c.expiresAt < :now ORDER BY c.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
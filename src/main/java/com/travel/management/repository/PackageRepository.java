@@ -1,14 +1,27 @@
 package com.travel.management.repository;
 
+import com.travel.management.dto.CollectionStamp;
+import com.travel.management.dto.PackageAggregates;
+import com.travel.management.dto.PackageExportRow;
+import com.travel.management.dto.PackageSimilarityRow;
+import com.travel.management.dto.PackageTripsStamp;
+import com.travel.management.dto.VersionStamp;
 import com.travel.management.model.Package;
 import com.travel.management.model.Trip;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PackageRepository extends JpaRepository<Package, Long>, JpaSpecificationExecutor<Package> {
@@ -17,6 +30,67 @@ public interface PackageRepository extends JpaRepository<Package, Long>, JpaSpec
     @Query("SELECT COUNT(p) > 0 FROM Package p WHERE p.status = 'PUBLIC' AND p.id = :packageId")
     boolean isPackagePublic(@Param("packageId") Long packageId);
 
+    // Public with no unavailable trip, read from the stored trip counts in one primary-key lookup
+    @Query("SELECT CASE WHEN p.status = 'PUBLIC' AND p.availableTripCount = p.tripCount THEN true ELSE false END " +
+            "FROM Package p WHERE p.id = :packageId")
+    Optional<Boolean> findBookableById(@Param("packageId") Long packageId);
+
     @Query("SELECT p FROM Package p JOIN p.trips t WHERE t.id = :tripId")
     List<Package> findPackagesByTripId(@Param("tripId") Long tripId);
+
+    // Initializes the trips and creator of already loaded packages in one query, instead of two lazy loads each.
+    // The creator's roles are eager, so they are joined too rather than selected per creator.
+    @Query("SELECT DISTINCT p FROM Package p LEFT JOIN FETCH p.trips " +
+            "LEFT JOIN FETCH p.createdBy u LEFT JOIN FETCH u.roles WHERE p.id IN :ids")
+    List<Package> fetchTripsAndCreators(@Param("ids") Collection<Long> ids);
+
+    // The trips are part of the package response, so their versions count towards the package's
+    @Query("SELECT new com.travel.management.dto.VersionStamp(" +
+            "p.version + COALESCE(SUM(t.version), 0), " +
+            "COALESCE(GREATEST(COALESCE(p.updatedAt, p.createdAt), MAX(COALESCE(t.updatedAt, t.createdAt))), " +
+            "COALESCE(p.updatedAt, p.createdAt)), " +
+            "CASE WHEN p.status = 'PUBLIC' THEN true ELSE false END) " +
+            "FROM Package p LEFT JOIN p.trips t WHERE p.id = :id " +
+            "GROUP BY p.id, p.version, p.updatedAt, p.createdAt, p.status")
+    Optional<VersionStamp> findVersionStampById(@Param("id") Long id);
+
+    @Query("SELECT new com.travel.management.dto.PackageTripsStamp(p.version, " +
+            "CASE WHEN p.status = 'PUBLIC' THEN true ELSE false END, " +
+            "COUNT(t), SUM(t.version), MAX(t.id), " +
+            "COALESCE(GREATEST(COALESCE(p.updatedAt, p.createdAt), MAX(COALESCE(t.updatedAt, t.createdAt))), " +
+            "COALESCE(p.updatedAt, p.createdAt))) " +
+            "FROM Package p LEFT JOIN p.trips t WHERE p.id = :id " +
+            "GROUP BY p.id, p.version, p.updatedAt, p.createdAt, p.status")
+    Optional<PackageTripsStamp> findTripsStampById(@Param("id") Long id);
+
+    @Query("SELECT new com.travel.management.dto.CollectionStamp(COUNT(p), SUM(p.version), MAX(p.id), " +
+            "MAX(COALESCE(p.updatedAt, p.createdAt))) FROM Package p " +
+            "WHERE (:includePrivate = true OR p.status = 'PUBLIC')")
+    CollectionStamp findCollectionStamp(@Param("includePrivate") boolean includePrivate);
+
+    // One row per package and trip, so a package and its trip ids come from a single forward-only read
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TripRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.travel.management.dto.PackageExportRow(p.id, p.name, p.description, p.price, " +
+            "p.category, p.totalDuration, p.status, p.createdAt, p.updatedAt, p.version, u.id, u.email, t.id) " +
+            "FROM Package p LEFT JOIN p.createdBy u LEFT JOIN p.trips t ORDER BY p.id, t.id")
+    Stream<PackageExportRow> streamExportRows();
+
+    String SIMILARITY_ROW_SELECT = "SELECT new com.travel.management.dto.PackageSimilarityRow(" +
+            "p.id, p.category, p.price, p.status, t.id) FROM Package p LEFT JOIN p.trips t ";
+
+    @Query(SIMILARITY_ROW_SELECT + "ORDER BY p.id")
+    List<PackageSimilarityRow> findAllSimilarityRows();
+
+    @Query(SIMILARITY_ROW_SELECT + "WHERE p.id = :id")
+    List<PackageSimilarityRow> findSimilarityRowsById(@Param("id") Long id);
+
+    // SUM over no rows is null: a package left without trips gets null totals, mapped to zero by the caller
+    @Query("SELECT new com.travel.management.dto.PackageAggregates(p.id, COUNT(t), SUM(t.durationDays), " +
+            "SUM(t.price), MIN(t.startTime), MAX(t.endTime), " +
+            "SUM(CASE WHEN t.available = true THEN 1 ELSE 0 END)) " +
+            "FROM Package p LEFT JOIN p.trips t WHERE p.id IN :ids GROUP BY p.id")
+    List<PackageAggregates> computeAggregates(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Package p WHERE p.tripCount IS NULL AND p.id > :after ORDER BY p.id")
+    List<Long> findIdsWithoutAggregates(@Param("after") long after, Pageable pageable);
 }
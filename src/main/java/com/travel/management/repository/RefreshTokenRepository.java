@@ -0,0 +1,41 @@
+package com.travel.management.repository;
+
+import com.travel.management.model.RefreshToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Each live session has exactly one unrevoked token, the latest in its rotation chain
+    @Query("SELECT rt.sessionId FROM RefreshToken rt " +
+            "WHERE rt.user.id = :userId AND rt.revokedAt IS NULL " +
+            "ORDER BY rt.createdAt ASC")
+    List<String> findActiveSessionIdsOldestFirst(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.sessionId = :sessionId")
+    int deleteSession(@Param("userId") Long userId, @Param("sessionId") String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.deviceId = :deviceId")
+    int deleteByUserIdAndDeviceId(@Param("userId") Long userId, @Param("deviceId") String deviceId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT rt.id FROM RefreshToken rt WHERE rt.expiresAt < :now ORDER BY rt.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -2,8 +2,12 @@ package com.travel.management.repository;
 
 import com.travel.management.dto.ReviewCreateRequest;
 import com.travel.management.model.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,6 +22,12 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
             @Param("itemId") Long itemId,
             @Param("type") String type,
             Pageable pageable);
+
+    // Keyset scrolling needs derived queries, so the item type picks the method
+    Window<Review> findByTripId(Long tripId, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Review> findByPkgId(Long packageId, ScrollPosition position, Sort sort, Limit limit);
+
     default boolean existsByUserIdAndItemId(Long userId, Long itemId, ReviewCreateRequest.ReviewType type) {
         if (type == ReviewCreateRequest.ReviewType.TRIP) {
             return existsByUserIdAndTripId(userId, itemId);
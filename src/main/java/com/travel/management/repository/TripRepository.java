@@ -1,12 +1,88 @@
 package com.travel.management.repository;
 
+import com.travel.management.dto.CollectionStamp;
+import com.travel.management.dto.TripListRow;
+import com.travel.management.dto.VersionStamp;
 import com.travel.management.model.Trip;
+import com.travel.management.search.TripSearchDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface TripRepository extends JpaRepository<Trip, Long>, JpaSpecificationExecutor<Trip> {
     //Page<Trip> findByAvailableTrue(Pageable pageable); // For paginated available trips
     boolean existsByTitleIgnoreCase(String title);
+
+    // Which of the given lower-cased titles are taken, for checking an import chunk in one query
+    @Query("SELECT LOWER(t.title) FROM Trip t WHERE LOWER(t.title) IN :titles")
+    Set<String> findExistingLowerCaseTitles(@Param("titles") Collection<String> titles);
+
+    String SEARCH_DOCUMENT_SELECT = "SELECT new com.travel.management.search.TripSearchDocument(" +
+            "t.id, t.title, t.address, t.description, t.activity, t.tips, " +
+            "t.price, t.startTime, t.endTime, t.available, t.latitude, t.longitude) ";
+
+    @Query(SEARCH_DOCUMENT_SELECT + "FROM Trip t")
+    List<TripSearchDocument> findAllSearchDocuments();
+
+    @Query(SEARCH_DOCUMENT_SELECT + "FROM Trip t WHERE t.id IN :ids")
+    List<TripSearchDocument> findSearchDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SEARCH_DOCUMENT_SELECT + "FROM Package p JOIN p.trips t WHERE p.id = :packageId " +
+            "AND (:includeUnavailable = true OR t.available = true)")
+    List<TripSearchDocument> findSearchDocumentsByPackageId(@Param("packageId") Long packageId,
+                                                            @Param("includeUnavailable") boolean includeUnavailable);
+
+    String LIST_ROW_SELECT = "SELECT new com.travel.management.dto.TripListRow(" +
+            "t.id, t.title, t.address, t.description, t.price, t.duration, t.locationLink, t.tips, " +
+            "t.startTime, t.endTime, t.activity, t.latitude, t.longitude, t.image, t.available, t.createdAt, t.updatedAt, t.version, " +
+            "u.id, u.firstName, u.lastName, u.email) FROM Trip t LEFT JOIN t.createdBy u ";
+
+    @Query(value = LIST_ROW_SELECT + "WHERE (:includeUnavailable = true OR t.available = true)",
+            countQuery = "SELECT COUNT(t) FROM Trip t WHERE (:includeUnavailable = true OR t.available = true)")
+    Page<TripListRow> findListRows(@Param("includeUnavailable") boolean includeUnavailable, Pageable pageable);
+
+    @Query(LIST_ROW_SELECT + "WHERE t.id IN :ids")
+    List<TripListRow> findListRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Trips written before durations were parsed on save
+    @Query("SELECT t FROM Trip t WHERE t.durationDays IS NULL AND t.duration IS NOT NULL AND t.id > :after " +
+            "ORDER BY t.id")
+    List<Trip> findWithUnparsedDuration(@Param("after") long after, Pageable pageable);
+
+    // Rows the JDBC driver fetches per round trip when streaming an export
+    String EXPORT_FETCH_SIZE = "500";
+
+    // Forward-only and never managed, so the persistence context stays empty however many trips there are
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(LIST_ROW_SELECT + "ORDER BY t.id")
+    Stream<TripListRow> streamListRows();
+
+    @Query("SELECT new com.travel.management.dto.VersionStamp(t.version, COALESCE(t.updatedAt, t.createdAt), " +
+            "t.available) FROM Trip t WHERE t.id = :id")
+    Optional<VersionStamp> findVersionStampById(@Param("id") Long id);
+
+    @Query("SELECT new com.travel.management.dto.CollectionStamp(COUNT(t), SUM(t.version), MAX(t.id), " +
+            "MAX(COALESCE(t.updatedAt, t.createdAt))) FROM Trip t " +
+            "WHERE (:includeUnavailable = true OR t.available = true)")
+    CollectionStamp findCollectionStamp(@Param("includeUnavailable") boolean includeUnavailable);
+
+    @Query("SELECT new com.travel.management.dto.CollectionStamp(COUNT(t), SUM(t.version), MAX(t.id), " +
+            "MAX(COALESCE(t.updatedAt, t.createdAt))) FROM Trip t " +
+            "WHERE t.id IN :ids AND (:includeUnavailable = true OR t.available = true)")
+    CollectionStamp findCollectionStampByIdIn(@Param("ids") Collection<Long> ids,
+                                              @Param("includeUnavailable") boolean includeUnavailable);
 }
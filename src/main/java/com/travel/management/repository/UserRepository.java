@@ -3,13 +3,26 @@ package com.travel.management.repository;
 import com.travel.management.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
     Optional<User> findByPhoneNumber(String phoneNumber);
-    Optional<User> findByRefreshToken(String refreshToken);
+    boolean existsByEmail(String email);
+    boolean existsByEmailAndLockoutTimeAfter(String email, LocalDateTime time);
+
+    @Modifying
+    @Query("UPDATE User u SET u.enabled = true WHERE u.email = :email")
+    int enableByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.lockoutTime = :lockoutTime WHERE u.email = :email")
+    int lockUntil(@Param("email") String email, @Param("lockoutTime") LocalDateTime lockoutTime);
 
 }
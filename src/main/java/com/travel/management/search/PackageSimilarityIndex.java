@@ -0,0 +1,324 @@
+package com.travel.management.search;
+
+import com.travel.management.dto.PackageSimilarityRow;
+import com.travel.management.model.Package;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.service.PackageChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed related packages. A package is scored against the packages it
+ * can be related to - those sharing a trip with it and those of its category
+ * nearest in price - by Jaccard overlap of their trip sets, category match
+ * and price proximity, and its best {@code neighbours} are kept twice: over
+ * all packages and over the public ones. A lookup is a map read; a change
+ * only rescores the packages whose lists the changed package is on or could
+ * enter. Kept current from {@link PackageChangedEvent}s.
+ */
+@Component
+@Slf4j
+public class PackageSimilarityIndex {
+    static final double TRIP_WEIGHT = 0.6;
+    static final double CATEGORY_WEIGHT = 0.25;
+    static final double PRICE_WEIGHT = 0.15;
+
+    // Packages without a price sort first and are never close in price to anything
+    private static final Comparator<Profile> BY_PRICE = Comparator
+            .comparingDouble((Profile profile) -> profile.price() != null ? profile.price() : -1)
+            .thenComparing(Profile::id);
+
+    private final PackageRepository packageRepository;
+    private final int neighbours;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Profile> profiles = new HashMap<>();
+    private final Map<Long, Set<Long>> packagesByTrip = new HashMap<>();
+    private final Map<String, NavigableSet<Profile>> packagesByCategory = new HashMap<>();
+    private final Map<Long, Related> related = new HashMap<>();
+    // For each package, the packages whose lists it is on
+    private final Map<Long, Set<Long>> listedBy = new HashMap<>();
+    private volatile boolean ready;
+
+    public PackageSimilarityIndex(PackageRepository packageRepository,
+                                  @Value("${search.related.neighbours:10}") int neighbours) {
+        if (neighbours < 1) {
+            throw new IllegalArgumentException("At least one related package must be kept per package");
+        }
+        this.packageRepository = packageRepository;
+        this.neighbours = neighbours;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<Profile> all = Profile.fromRows(packageRepository.findAllSimilarityRows());
+        lock.writeLock().lock();
+        try {
+            profiles.clear();
+            packagesByTrip.clear();
+            packagesByCategory.clear();
+            related.clear();
+            listedBy.clear();
+            all.forEach(this::add);
+            all.forEach(profile -> rank(profile.id()));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Related package index built for {} packages", all.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPackageChanged(PackageChangedEvent event) {
+        List<Profile> changed = event.deleted()
+                ? List.of()
+                : Profile.fromRows(packageRepository.findSimilarityRowsById(event.packageId()));
+        if (changed.isEmpty()) {
+            remove(event.packageId());
+        } else {
+            upsert(changed.get(0));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void upsert(Profile profile) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> affected = new HashSet<>(listedBy.getOrDefault(profile.id(), Set.of()));
+            Profile previous = profiles.get(profile.id());
+            if (previous != null) {
+                drop(previous);
+            }
+            add(profile);
+            affected.addAll(candidatesOf(profile));
+            rank(profile.id());
+            affected.forEach(this::rank);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long packageId) {
+        lock.writeLock().lock();
+        try {
+            Profile previous = profiles.get(packageId);
+            if (previous == null) {
+                return;
+            }
+            // a package that was on no list cannot have kept anything else off one
+            Set<Long> affected = new HashSet<>(listedBy.getOrDefault(packageId, Set.of()));
+            drop(previous);
+            unlist(packageId);
+            listedBy.remove(packageId);
+            affected.forEach(this::rank);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the packages most related to the package, best first, at most
+     * {@code limit} of them; empty for a package the index does not know.
+     */
+    public List<Long> related(Long packageId, int limit, boolean includePrivate) {
+        lock.readLock().lock();
+        try {
+            Related list = related.get(packageId);
+            if (list == null) {
+                return List.of();
+            }
+            List<Long> ids = includePrivate ? list.all() : list.visible();
+            return ids.size() > limit ? ids.subList(0, limit) : ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static double score(Profile a, Profile b) {
+        double score = TRIP_WEIGHT * jaccard(a.tripIds(), b.tripIds());
+        if (a.category() != null && a.category().equals(b.category())) {
+            score += CATEGORY_WEIGHT;
+        }
+        return score + PRICE_WEIGHT * priceProximity(a.price(), b.price());
+    }
+
+    private static double jaccard(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (Long tripId : smaller) {
+            if (larger.contains(tripId)) {
+                shared++;
+            }
+        }
+        return (double) shared / (a.size() + b.size() - shared);
+    }
+
+    private static double priceProximity(Double a, Double b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        double higher = Math.max(a, b);
+        return higher <= 0 ? 1 : 1 - Math.abs(a - b) / higher;
+    }
+
+    private void add(Profile profile) {
+        profiles.put(profile.id(), profile);
+        profile.tripIds().forEach(tripId ->
+                packagesByTrip.computeIfAbsent(tripId, key -> new HashSet<>()).add(profile.id()));
+        if (profile.category() != null) {
+            packagesByCategory.computeIfAbsent(profile.category(), key -> new TreeSet<>(BY_PRICE)).add(profile);
+        }
+    }
+
+    private void drop(Profile profile) {
+        profiles.remove(profile.id());
+        profile.tripIds().forEach(tripId -> {
+            Set<Long> holders = packagesByTrip.get(tripId);
+            holders.remove(profile.id());
+            if (holders.isEmpty()) {
+                packagesByTrip.remove(tripId);
+            }
+        });
+        if (profile.category() != null) {
+            NavigableSet<Profile> members = packagesByCategory.get(profile.category());
+            members.remove(profile);
+            if (members.isEmpty()) {
+                packagesByCategory.remove(profile.category());
+            }
+        }
+    }
+
+    /**
+     * The packages sharing a trip with the profile, plus the ones of its
+     * category nearest in price on either side. Any other package of the
+     * category is further in price than a full list's worth of those, so it
+     * scores below all of them and cannot make either list. The relation is
+     * symmetric, which is also how a change finds the lists it may enter.
+     */
+    private Set<Long> candidatesOf(Profile profile) {
+        Set<Long> candidates = new HashSet<>();
+        profile.tripIds().forEach(tripId -> candidates.addAll(packagesByTrip.getOrDefault(tripId, Set.of())));
+        NavigableSet<Profile> members = profile.category() != null
+                ? packagesByCategory.get(profile.category())
+                : null;
+        if (members != null) {
+            collectNearest(members.headSet(profile, false).descendingIterator(), candidates);
+            collectNearest(members.tailSet(profile, false).iterator(), candidates);
+        }
+        candidates.remove(profile.id());
+        return candidates;
+    }
+
+    // Walks out until a full list of packages and a full list of public ones have been passed
+    private void collectNearest(Iterator<Profile> side, Set<Long> into) {
+        int passed = 0;
+        int visible = 0;
+        while (side.hasNext() && (passed < neighbours || visible < neighbours)) {
+            Profile next = side.next();
+            into.add(next.id());
+            passed++;
+            if (next.visible()) {
+                visible++;
+            }
+        }
+    }
+
+    private void rank(Long packageId) {
+        Profile profile = profiles.get(packageId);
+        List<Scored> scored = new ArrayList<>();
+        for (Long candidateId : candidatesOf(profile)) {
+            Profile candidate = profiles.get(candidateId);
+            scored.add(new Scored(candidate, score(profile, candidate)));
+        }
+        scored.sort(Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparing(match -> match.profile().id()));
+
+        Related list = new Related(
+                scored.stream().limit(neighbours).map(match -> match.profile().id()).toList(),
+                scored.stream().filter(match -> match.profile().visible()).limit(neighbours)
+                        .map(match -> match.profile().id()).toList());
+        unlist(packageId);
+        related.put(packageId, list);
+        list.all().forEach(id -> listedBy.computeIfAbsent(id, key -> new HashSet<>()).add(packageId));
+        list.visible().forEach(id -> listedBy.computeIfAbsent(id, key -> new HashSet<>()).add(packageId));
+    }
+
+    private void unlist(Long packageId) {
+        Related previous = related.remove(packageId);
+        if (previous == null) {
+            return;
+        }
+        previous.all().forEach(id -> unlist(id, packageId));
+        previous.visible().forEach(id -> unlist(id, packageId));
+    }
+
+    private void unlist(Long listedId, Long packageId) {
+        Set<Long> holders = listedBy.get(listedId);
+        if (holders != null) {
+            holders.remove(packageId);
+            if (holders.isEmpty()) {
+                listedBy.remove(listedId);
+            }
+        }
+    }
+
+    /**
+     * What a package is scored on. Categories compare case-insensitively and
+     * a blank one matches nothing.
+     */
+    public record Profile(Long id, String category, Double price, boolean visible, Set<Long> tripIds) {
+        public Profile {
+            category = StringUtils.hasText(category) ? category.trim().toLowerCase(Locale.ROOT) : null;
+            tripIds = Set.copyOf(tripIds);
+        }
+
+        static List<Profile> fromRows(List<PackageSimilarityRow> rows) {
+            Map<Long, List<PackageSimilarityRow>> byPackage = new LinkedHashMap<>();
+            rows.forEach(row -> byPackage.computeIfAbsent(row.packageId(), key -> new ArrayList<>()).add(row));
+            List<Profile> profiles = new ArrayList<>(byPackage.size());
+            byPackage.forEach((packageId, packageRows) -> {
+                PackageSimilarityRow first = packageRows.get(0);
+                Set<Long> tripIds = new HashSet<>();
+                packageRows.stream()
+                        .map(PackageSimilarityRow::tripId)
+                        .filter(tripId -> tripId != null)
+                        .forEach(tripIds::add);
+                profiles.add(new Profile(packageId, first.category(), first.price(),
+                        first.status() == Package.PackageStatus.PUBLIC, tripIds));
+            });
+            return profiles;
+        }
+    }
+
+    private record Related(List<Long> all, List<Long> visible) {
+    }
+
+    private record Scored(Profile profile, double score) {
+    }
+}
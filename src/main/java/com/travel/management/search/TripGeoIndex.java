@@ -0,0 +1,268 @@
+package com.travel.management.search;
+
+import com.travel.management.repository.TripRepository;
+import com.travel.management.service.TripChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory grid index over trip coordinates. The globe is cut into square
+ * cells of {@code cellDegrees}; a query only visits the cells that can hold an
+ * answer and ranks the candidates by haversine distance. Kept current from
+ * {@link TripChangedEvent}s like {@link TripSearchIndex}.
+ */
+@Component
+@Slf4j
+public class TripGeoIndex {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private final TripRepository tripRepository;
+    private final double cellDegrees;
+    private final int longitudeCells;
+    private final int latitudeCells;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<GeoPoint>> cells = new HashMap<>();
+    private final Map<Long, GeoPoint> points = new HashMap<>();
+    private volatile boolean ready;
+
+    public TripGeoIndex(TripRepository tripRepository,
+                        @Value("${search.geo.cell-degrees:0.25}") double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("Geo cell size must be between 0 and 90 degrees");
+        }
+        this.tripRepository = tripRepository;
+        this.cellDegrees = cellDegrees;
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+        this.latitudeCells = (int) Math.ceil(180 / cellDegrees);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<TripSearchDocument> documents = tripRepository.findAllSearchDocuments();
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            points.clear();
+            documents.forEach(this::add);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trip geo index built with {} located trips in {} cells", points.size(), cells.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.tripId());
+        } else {
+            upsert(event.document());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void upsert(TripSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            removePoint(document.id());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            removePoint(tripId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Trips within {@code radiusKm} of the point, nearest first, at most
+     * {@code limit} of them.
+     */
+    public List<Match> withinRadius(double latitude, double longitude, double radiusKm, int limit,
+                                    boolean includeUnavailable) {
+        lock.readLock().lock();
+        try {
+            int rings = ringsFor(latitude, radiusKm);
+            List<Match> matches = new ArrayList<>();
+            visitRings(latitude, longitude, 0, rings, point -> {
+                if (includeUnavailable || point.available()) {
+                    double distance = haversineKm(latitude, longitude, point.latitude(), point.longitude());
+                    if (distance <= radiusKm) {
+                        matches.add(new Match(point.tripId(), distance));
+                    }
+                }
+            });
+            matches.sort(Comparator.comparingDouble(Match::distanceKm).thenComparing(Match::tripId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code k} trips nearest to the point. Rings of cells are visited
+     * outwards until no unvisited cell can hold anything closer than the
+     * current k-th match.
+     */
+    public List<Match> nearest(double latitude, double longitude, int k, boolean includeUnavailable) {
+        lock.readLock().lock();
+        try {
+            // max-heap on distance holding the best k so far
+            PriorityQueue<Match> best = new PriorityQueue<>(
+                    Comparator.comparingDouble(Match::distanceKm).reversed());
+            int maxRings = Math.max(latitudeCells, longitudeCells / 2);
+            int[] visited = {0};
+            for (int ring = 0; ring <= maxRings && visited[0] < points.size(); ring++) {
+                visitRings(latitude, longitude, ring, ring, point -> {
+                    visited[0]++;
+                    if (includeUnavailable || point.available()) {
+                        double distance = haversineKm(latitude, longitude, point.latitude(), point.longitude());
+                        if (best.size() < k) {
+                            best.add(new Match(point.tripId(), distance));
+                        } else if (distance < best.peek().distanceKm()) {
+                            best.poll();
+                            best.add(new Match(point.tripId(), distance));
+                        }
+                    }
+                });
+                if (best.size() == k && best.peek().distanceKm() <= coveredRadiusKm(latitude, ring)) {
+                    break;
+                }
+            }
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(Comparator.comparingDouble(Match::distanceKm).thenComparing(Match::tripId));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Every point outside the first `ring` rings around the query is at least this far away
+    private double coveredRadiusKm(double latitude, int ring) {
+        double degrees = ring * cellDegrees;
+        double widestLatitude = Math.min(90, Math.abs(latitude) + degrees);
+        double longitudeKm = degrees * KM_PER_DEGREE * Math.cos(Math.toRadians(widestLatitude));
+        return Math.min(degrees * KM_PER_DEGREE, longitudeKm);
+    }
+
+    // Smallest number of rings whose covered radius reaches radiusKm
+    private int ringsFor(double latitude, double radiusKm) {
+        int maxRings = Math.max(latitudeCells, longitudeCells / 2);
+        int rings = (int) Math.ceil(radiusKm / (cellDegrees * KM_PER_DEGREE));
+        while (rings < maxRings && coveredRadiusKm(latitude, rings) < radiusKm) {
+            rings++;
+        }
+        return Math.min(rings, maxRings);
+    }
+
+    // Visits the points of every cell whose ring distance from the query cell is within [fromRing, toRing]
+    private void visitRings(double latitude, double longitude, int fromRing, int toRing,
+                            Consumer<GeoPoint> visitor) {
+        int centerY = latitudeCell(latitude);
+        int centerX = longitudeCell(longitude);
+        // once the rings wrap all the way around, visit each column once
+        int west = Math.min(toRing, longitudeCells / 2);
+        int east = Math.min(toRing, longitudeCells - 1 - west);
+        for (int dy = -toRing; dy <= toRing; dy++) {
+            int y = centerY + dy;
+            if (y < 0 || y >= latitudeCells) {
+                continue;
+            }
+            for (int dx = -west; dx <= east; dx++) {
+                if (Math.max(Math.abs(dx), Math.abs(dy)) < fromRing) {
+                    continue;
+                }
+                int x = Math.floorMod(centerX + dx, longitudeCells);
+                List<GeoPoint> cell = cells.get(cellKey(x, y));
+                if (cell != null) {
+                    cell.forEach(visitor);
+                }
+            }
+        }
+    }
+
+    private void add(TripSearchDocument document) {
+        if (document.latitude() == null || document.longitude() == null
+                || Math.abs(document.latitude()) > 90 || Math.abs(document.longitude()) > 180) {
+            return;
+        }
+        GeoPoint point = new GeoPoint(document.id(), document.latitude(), document.longitude(),
+                document.available());
+        points.put(point.tripId(), point);
+        cells.computeIfAbsent(cellKey(longitudeCell(point.longitude()), latitudeCell(point.latitude())),
+                key -> new ArrayList<>()).add(point);
+    }
+
+    private void removePoint(Long tripId) {
+        GeoPoint point = points.remove(tripId);
+        if (point == null) {
+            return;
+        }
+        long key = cellKey(longitudeCell(point.longitude()), latitudeCell(point.latitude()));
+        List<GeoPoint> cell = cells.get(key);
+        cell.removeIf(candidate -> candidate.tripId().equals(tripId));
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private int latitudeCell(double latitude) {
+        return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), longitudeCells);
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    public record Match(Long tripId, double distanceKm) {
+    }
+
+    private record GeoPoint(Long tripId, double latitude, double longitude, boolean available) {
+    }
+}
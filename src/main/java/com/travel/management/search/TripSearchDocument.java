@@ -0,0 +1,39 @@
+package com.travel.management.search;
+
+import com.travel.management.model.Trip;
+
+import java.time.LocalDateTime;
+
+/**
+ * The searchable and facetable fields of a trip, as held by {@link TripSearchIndex}
+ * and {@link TripGeoIndex}.
+ */
+public record TripSearchDocument(Long id,
+                                 String title,
+                                 String address,
+                                 String description,
+                                 String activity,
+                                 String tips,
+                                 Double price,
+                                 LocalDateTime startTime,
+                                 LocalDateTime endTime,
+                                 boolean available,
+                                 Double latitude,
+                                 Double longitude) {
+
+    public static TripSearchDocument from(Trip trip) {
+        return new TripSearchDocument(
+                trip.getId(),
+                trip.getTitle(),
+                trip.getAddress(),
+                trip.getDescription(),
+                trip.getActivity(),
+                trip.getTips(),
+                trip.getPrice(),
+                trip.getStartTime(),
+                trip.getEndTime(),
+                trip.isAvailable(),
+                trip.getLatitude(),
+                trip.getLongitude());
+    }
+}
@@ -0,0 +1,491 @@
+package com.travel.management.search;
+
+import com.travel.management.dto.PriceBucketCountDTO;
+import com.travel.management.dto.TripFacetsDTO;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.service.TripChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the text fields of every trip. Built once at
+ * startup and kept current from {@link TripChangedEvent}s after each commit.
+ * Terms are kept sorted so a query word also matches the terms it is a prefix
+ * of. Matches are ranked by field weight, term frequency and term rarity.
+ * <p>
+ * Each trip also gets a dense ordinal, and every facet value (activity, price
+ * bucket, availability) keeps a bitmap of the ordinals that have it, so facet
+ * counts for a result set are bitmap intersections rather than extra queries.
+ */
+@Component
+@Slf4j
+public class TripSearchIndex {
+    public static final int FIELD_TITLE = 1;
+    public static final int FIELD_ADDRESS = 1 << 1;
+    public static final int FIELD_DESCRIPTION = 1 << 2;
+    public static final int FIELD_ACTIVITY = 1 << 3;
+    public static final int FIELD_TIPS = 1 << 4;
+    public static final int ALL_FIELDS = FIELD_TITLE | FIELD_ADDRESS | FIELD_DESCRIPTION | FIELD_ACTIVITY | FIELD_TIPS;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // Bounds the work for very short prefixes that would expand to most of the vocabulary
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    private final TripRepository tripRepository;
+    // Upper bounds of the price buckets; the last bucket is open-ended
+    private final double[] priceEdges;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private final Map<Long, IndexedTrip> trips = new HashMap<>();
+
+    // Facet bitmaps over trip ordinals
+    private final List<Long> tripIdsByOrdinal = new ArrayList<>();
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet liveTrips = new BitSet();
+    private final BitSet availableTrips = new BitSet();
+    private final Map<String, BitSet> activityBitmaps = new HashMap<>();
+    private final Map<String, String> activityLabels = new HashMap<>();
+    private final BitSet[] priceBucketBitmaps;
+    private volatile boolean ready;
+
+    public TripSearchIndex(TripRepository tripRepository,
+                           @Value("${search.facets.price-buckets:100,250,500}") double[] priceEdges) {
+        this.tripRepository = tripRepository;
+        this.priceEdges = priceEdges.clone();
+        Arrays.sort(this.priceEdges);
+        this.priceBucketBitmaps = new BitSet[this.priceEdges.length + 1];
+        for (int i = 0; i < priceBucketBitmaps.length; i++) {
+            priceBucketBitmaps[i] = new BitSet();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<TripSearchDocument> documents = tripRepository.findAllSearchDocuments();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trips.clear();
+            tripIdsByOrdinal.clear();
+            freeOrdinals.clear();
+            liveTrips.clear();
+            availableTrips.clear();
+            activityBitmaps.clear();
+            activityLabels.clear();
+            for (BitSet bucket : priceBucketBitmaps) {
+                bucket.clear();
+            }
+            documents.forEach(this::add);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trip search index built with {} trips and {} terms", documents.size(), postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.tripId());
+        } else {
+            upsert(event.document());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void upsert(TripSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeTrip(document.id());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            removeTrip(tripId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of matching trips, best match first. A trip matches a
+     * clause when every word of the clause is found in the clause's fields, and
+     * matches the query when it matches any clause.
+     */
+    public List<Long> search(Collection<Clause> clauses, boolean includeUnavailable) {
+        return search(clauses, includeUnavailable, false).tripIds();
+    }
+
+    /**
+     * Like {@link #search(Collection, boolean)}, optionally with facet counts
+     * over the whole result set. Without clauses no ids are returned and the
+     * facets cover every visible trip.
+     */
+    public SearchResult search(Collection<Clause> clauses, boolean includeUnavailable, boolean withFacets) {
+        lock.readLock().lock();
+        try {
+            if (clauses.isEmpty()) {
+                BitSet visible = (BitSet) (includeUnavailable ? liveTrips : availableTrips).clone();
+                return new SearchResult(List.of(), withFacets ? facets(visible) : null);
+            }
+
+            Map<Long, Float> scores = new HashMap<>();
+            for (Clause clause : clauses) {
+                Map<Long, Float> clauseScores = match(clause);
+                clauseScores.forEach((tripId, score) -> scores.merge(tripId, score, Float::sum));
+            }
+
+            List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.size());
+            BitSet matched = new BitSet();
+            for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                IndexedTrip trip = trips.get(entry.getKey());
+                if (includeUnavailable || trip.available()) {
+                    ranked.add(entry);
+                    matched.set(trip.ordinal());
+                }
+            }
+            ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+            List<Long> tripIds = ranked.stream().map(Map.Entry::getKey).toList();
+            return new SearchResult(tripIds, withFacets ? facets(matched) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trips.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private Map<Long, Float> match(Clause clause) {
+        List<String> words = tokenize(clause.text());
+        Map<Long, Float> result = null;
+        for (String word : words) {
+            Map<Long, Float> wordScores = matchWord(word, clause.fields());
+            if (result == null) {
+                result = wordScores;
+            } else {
+                // every word of a clause has to match
+                result.keySet().retainAll(wordScores.keySet());
+                result.replaceAll((tripId, score) -> score + wordScores.get(tripId));
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Map.of() : result;
+    }
+
+    private Map<Long, Float> matchWord(String word, int fields) {
+        Map<Long, Float> scores = new HashMap<>();
+        collect(word, postings.get(word), fields, 1f, scores);
+
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            NavigableMap<String, Map<Long, Posting>> expansions =
+                    postings.subMap(word, false, word + Character.MAX_VALUE, false);
+            int expanded = 0;
+            for (Map.Entry<String, Map<Long, Posting>> entry : expansions.entrySet()) {
+                if (++expanded > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                collect(entry.getKey(), entry.getValue(), fields, PREFIX_MATCH_FACTOR, scores);
+            }
+        }
+        return scores;
+    }
+
+    private void collect(String term, Map<Long, Posting> termPostings, int fields, float factor,
+                         Map<Long, Float> scores) {
+        if (termPostings == null) {
+            return;
+        }
+        float idf = (float) Math.log(1 + (double) trips.size() / termPostings.size());
+        for (Map.Entry<Long, Posting> entry : termPostings.entrySet()) {
+            Posting posting = entry.getValue();
+            if ((posting.fields() & fields) == 0) {
+                continue;
+            }
+            float score = posting.weightFor(fields) * idf * factor;
+            // a word counts once per trip, through its best matching term
+            scores.merge(entry.getKey(), score, Math::max);
+        }
+    }
+
+    private TripFacetsDTO facets(BitSet matched) {
+        Map<String, Long> activityCounts = new HashMap<>();
+        activityBitmaps.forEach((key, bitmap) -> {
+            long count = intersectionCount(bitmap, matched);
+            if (count > 0) {
+                activityCounts.put(activityLabels.get(key), count);
+            }
+        });
+        Map<String, Long> activities = new LinkedHashMap<>();
+        activityCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> activities.put(entry.getKey(), entry.getValue()));
+
+        List<PriceBucketCountDTO> priceBuckets = new ArrayList<>(priceBucketBitmaps.length);
+        for (int bucket = 0; bucket < priceBucketBitmaps.length; bucket++) {
+            Double min = bucket == 0 ? 0d : priceEdges[bucket - 1];
+            Double max = bucket < priceEdges.length ? priceEdges[bucket] : null;
+            priceBuckets.add(PriceBucketCountDTO.builder()
+                    .label(max == null ? formatPrice(min) + "+" : formatPrice(min) + "-" + formatPrice(max))
+                    .min(min)
+                    .max(max)
+                    .count(intersectionCount(priceBucketBitmaps[bucket], matched))
+                    .build());
+        }
+
+        long available = intersectionCount(availableTrips, matched);
+
+        // Opening hours depend on the current time, so they are checked per matched trip
+        int nowMinute = minuteOfDay(LocalTime.now());
+        long openNow = 0;
+        long closedNow = 0;
+        for (int ordinal = matched.nextSetBit(0); ordinal >= 0; ordinal = matched.nextSetBit(ordinal + 1)) {
+            IndexedTrip trip = trips.get(tripIdsByOrdinal.get(ordinal));
+            if (trip.openMinute() < 0 || trip.closeMinute() < 0) {
+                continue;
+            }
+            if (isOpen(trip.openMinute(), trip.closeMinute(), nowMinute)) {
+                openNow++;
+            } else {
+                closedNow++;
+            }
+        }
+
+        return TripFacetsDTO.builder()
+                .activities(activities)
+                .priceBuckets(priceBuckets)
+                .available(available)
+                .unavailable(matched.cardinality() - available)
+                .openNow(openNow)
+                .closedNow(closedNow)
+                .build();
+    }
+
+    private static long intersectionCount(BitSet bitmap, BitSet matched) {
+        BitSet intersection = (BitSet) bitmap.clone();
+        intersection.and(matched);
+        return intersection.cardinality();
+    }
+
+    private static boolean isOpen(int openMinute, int closeMinute, int nowMinute) {
+        if (openMinute <= closeMinute) {
+            return nowMinute >= openMinute && nowMinute < closeMinute;
+        }
+        // open past midnight
+        return nowMinute >= openMinute || nowMinute < closeMinute;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static String formatPrice(double price) {
+        return price == Math.rint(price) ? String.valueOf((long) price) : String.valueOf(price);
+    }
+
+    private int priceBucket(Double price) {
+        if (price == null) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket < priceEdges.length && price >= priceEdges[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private void add(TripSearchDocument document) {
+        Map<String, Posting> docPostings = new HashMap<>();
+        addField(docPostings, document.title(), FIELD_TITLE);
+        addField(docPostings, document.address(), FIELD_ADDRESS);
+        addField(docPostings, document.description(), FIELD_DESCRIPTION);
+        addField(docPostings, document.activity(), FIELD_ACTIVITY);
+        addField(docPostings, document.tips(), FIELD_TIPS);
+
+        docPostings.forEach((term, posting) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), posting));
+
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = tripIdsByOrdinal.size();
+            tripIdsByOrdinal.add(document.id());
+        } else {
+            ordinal = freeOrdinals.pop();
+            tripIdsByOrdinal.set(ordinal, document.id());
+        }
+        liveTrips.set(ordinal);
+        if (document.available()) {
+            availableTrips.set(ordinal);
+        }
+        String activityKey = null;
+        if (document.activity() != null && !document.activity().isBlank()) {
+            activityKey = document.activity().trim().toLowerCase(Locale.ROOT);
+            activityBitmaps.computeIfAbsent(activityKey, k -> new BitSet()).set(ordinal);
+            activityLabels.putIfAbsent(activityKey, document.activity().trim());
+        }
+        int priceBucket = priceBucket(document.price());
+        if (priceBucket >= 0) {
+            priceBucketBitmaps[priceBucket].set(ordinal);
+        }
+
+        trips.put(document.id(), new IndexedTrip(ordinal, new HashSet<>(docPostings.keySet()),
+                document.available(), activityKey, priceBucket,
+                document.startTime() != null ? minuteOfDay(document.startTime().toLocalTime()) : -1,
+                document.endTime() != null ? minuteOfDay(document.endTime().toLocalTime()) : -1));
+    }
+
+    private void addField(Map<String, Posting> docPostings, String text, int field) {
+        for (String token : tokenize(text)) {
+            docPostings.merge(token, Posting.of(field), Posting::plus);
+        }
+    }
+
+    private void removeTrip(Long tripId) {
+        IndexedTrip indexed = trips.remove(tripId);
+        if (indexed == null) {
+            return;
+        }
+        int ordinal = indexed.ordinal();
+        liveTrips.clear(ordinal);
+        availableTrips.clear(ordinal);
+        if (indexed.activityKey() != null) {
+            BitSet activity = activityBitmaps.get(indexed.activityKey());
+            activity.clear(ordinal);
+            if (activity.isEmpty()) {
+                activityBitmaps.remove(indexed.activityKey());
+                activityLabels.remove(indexed.activityKey());
+            }
+        }
+        if (indexed.priceBucket() >= 0) {
+            priceBucketBitmaps[indexed.priceBucket()].clear(ordinal);
+        }
+        tripIdsByOrdinal.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+
+        for (String term : indexed.terms()) {
+            Map<Long, Posting> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(tripId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static float fieldWeight(int field) {
+        return switch (field) {
+            case FIELD_TITLE -> 5f;
+            case FIELD_ADDRESS, FIELD_ACTIVITY -> 3f;
+            default -> 1f;
+        };
+    }
+
+    /**
+     * A word to find in some fields, e.g. the free-text query over all fields
+     * or a destination filter over the address only.
+     */
+    public record Clause(String text, int fields) {
+    }
+
+    /**
+     * Ranked trip ids, and the facet counts of the whole result when requested.
+     */
+    public record SearchResult(List<Long> tripIds, TripFacetsDTO facets) {
+    }
+
+    // minutes are -1 when the trip has no opening hours
+    private record IndexedTrip(int ordinal, Set<String> terms, boolean available, String activityKey,
+                               int priceBucket, int openMinute, int closeMinute) {
+    }
+
+    // Occurrences of one term in one trip, counted per field (5 fields, 8 bits each)
+    private record Posting(int fields, long counts) {
+
+        static Posting of(int field) {
+            return new Posting(field, 1L << (shift(field)));
+        }
+
+        Posting plus(Posting other) {
+            long merged = counts;
+            for (int field = FIELD_TITLE; field <= FIELD_TIPS; field <<= 1) {
+                long current = (merged >>> shift(field)) & 0xFF;
+                long added = (other.counts >>> shift(field)) & 0xFF;
+                long total = Math.min(0xFF, current + added);
+                merged = (merged & ~(0xFFL << shift(field))) | (total << shift(field));
+            }
+            return new Posting(fields | other.fields, merged);
+        }
+
+        float weightFor(int queryFields) {
+            float weight = 0;
+            for (int field = FIELD_TITLE; field <= FIELD_TIPS; field <<= 1) {
+                if ((queryFields & fields & field) != 0) {
+                    long count = (counts >>> shift(field)) & 0xFF;
+                    weight += fieldWeight(field) * (1 + (float) Math.log(count));
+                }
+            }
+            return weight;
+        }
+
+        private static int shift(int field) {
+            return Integer.numberOfTrailingZeros(field) * 8;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.travel.management.security;
+
+import com.travel.management.Utils.BloomFilter;
+import com.travel.management.Utils.JwtUtils;
+import com.travel.management.model.AccessTokenCutoff;
+import com.travel.management.model.RevokedAccessToken;
+import com.travel.management.repository.AccessTokenCutoffRepository;
+import com.travel.management.repository.RevokedAccessTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens that were revoked before they expired, either one token by its
+ * id or every token of a user issued up to a point in time. Revocations are
+ * stored in the database, so they survive a restart and reach every instance,
+ * and are mirrored in memory for the per-request check. Lookups go through a
+ * Bloom filter first, so a token that was never revoked costs a few hash
+ * probes. Entries are dropped once the tokens they cover have expired and the
+ * filter is rebuilt from what is left.
+ */
+@Component
+@Slf4j
+public class AccessTokenRevocationList {
+    private static final String TOKEN_KEY = "t:";
+    private static final String USER_KEY = "u:";
+    // Rows committed late or written on a clock slightly behind ours are still picked up by the next sync
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedAccessTokenRepository revokedTokenRepository;
+    private final AccessTokenCutoffRepository cutoffRepository;
+    private final int maxTokens;
+    private final double falsePositiveRate;
+    private final long accessTokenTtlMs;
+    // token id -> expiry of that token (epoch millis)
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, UserCutoff> userCutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastSync;
+
+    public AccessTokenRevocationList(RevokedAccessTokenRepository revokedTokenRepository,
+                                     AccessTokenCutoffRepository cutoffRepository,
+                                     @Value("${jwt.revocation.max-tokens:100000}") int maxTokens,
+                                     @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                     @Value("${jwt.expiration}") long accessTokenTtlMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.cutoffRepository = cutoffRepository;
+        this.maxTokens = maxTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+        this.filter = new BloomFilter(maxTokens, falsePositiveRate);
+        // Anything revoked longer ago than a token lifetime only covers tokens that have expired
+        this.lastSync = LocalDateTime.now().minus(Duration.ofMillis(accessTokenTtlMs)).plus(SYNC_OVERLAP);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        long now = System.currentTimeMillis();
+        BloomFilter current = filter;
+
+        String tokenId = claims.getId();
+        if (tokenId != null && current.mightContain(TOKEN_KEY + tokenId)) {
+            Long expiresAt = revokedTokens.get(tokenId);
+            if (expiresAt != null && expiresAt > now) {
+                return true;
+            }
+        }
+
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        if (userId != null && current.mightContain(USER_KEY + userId)) {
+            UserCutoff cutoff = userCutoffs.get(userId);
+            Long issuedAt = issuedAtMillis(claims);
+            return cutoff != null && cutoff.expiresAt() > now
+                    && issuedAt != null && issuedAt <= cutoff.issuedUpToMs();
+        }
+        return false;
+    }
+
+    /**
+     * Revokes a single access token until it expires. When the list is full the
+     * whole user is revoked instead, which is stricter but needs no extra entry
+     * per token.
+     */
+    public synchronized void revoke(Claims claims) {
+        long now = System.currentTimeMillis();
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.getTime() <= now) {
+            return;
+        }
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        String tokenId = claims.getId();
+
+        if (tokenId == null || (revokedTokens.size() >= maxTokens && purgeExpired(now) >= maxTokens)) {
+            if (userId != null) {
+                log.warn("Revoking all access tokens of user {} instead of a single token", userId);
+                revokeAllForUser(userId);
+            }
+            return;
+        }
+        revokedTokenRepository.save(new RevokedAccessToken(tokenId, userId,
+                toDateTime(expiration.getTime()), toDateTime(now)));
+        remember(tokenId, expiration.getTime());
+    }
+
+    /**
+     * Revokes every access token the user holds right now, that is every token
+     * issued up to this millisecond. Tokens from before issue times carried
+     * milliseconds only have the second they were issued in, so one of those
+     * issued later in the same second is revoked too.
+     */
+    public synchronized void revokeAllForUser(Long userId) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + accessTokenTtlMs;
+        cutoffRepository.save(new AccessTokenCutoff(userId, now, toDateTime(expiresAt), toDateTime(now)));
+        remember(userId, new UserCutoff(now, expiresAt));
+    }
+
+    /**
+     * Loads the revocations still in force when the application starts, and
+     * afterwards those made by other instances since the previous sync.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:10000}")
+    public void sync() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = lastSync.minus(SYNC_OVERLAP);
+        List<RevokedAccessToken> tokens = revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(since, startedAt);
+        List<AccessTokenCutoff> cutoffs = cutoffRepository.findByRevokedAtAfterAndExpiresAtAfter(since, startedAt);
+        synchronized (this) {
+            tokens.forEach(token -> remember(token.getTokenId(), toEpochMillis(token.getExpiresAt())));
+            cutoffs.forEach(cutoff -> remember(cutoff.getUserId(),
+                    new UserCutoff(cutoff.getIssuedUpToMs(), toEpochMillis(cutoff.getExpiresAt()))));
+        }
+        lastSync = startedAt;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            purgeExpired(now);
+        }
+        int deleted = revokedTokenRepository.deleteExpired(toDateTime(now))
+                + cutoffRepository.deleteExpired(toDateTime(now));
+        if (deleted > 0) {
+            log.debug("Removed {} expired access token revocations", deleted);
+        }
+    }
+
+    public int size() {
+        return revokedTokens.size() + userCutoffs.size();
+    }
+
+    private void remember(String tokenId, long expiresAt) {
+        revokedTokens.merge(tokenId, expiresAt, Math::max);
+        filter.add(TOKEN_KEY + tokenId);
+    }
+
+    private void remember(Long userId, UserCutoff cutoff) {
+        userCutoffs.merge(userId, cutoff, (current, next) ->
+                next.issuedUpToMs() >= current.issuedUpToMs() ? next : current);
+        filter.add(USER_KEY + userId);
+    }
+
+    private int purgeExpired(long now) {
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        userCutoffs.values().removeIf(cutoff -> cutoff.expiresAt() <= now);
+
+        // Bloom filters cannot forget keys, so start from a fresh one holding only live entries
+        BloomFilter rebuilt = new BloomFilter(maxTokens, falsePositiveRate);
+        revokedTokens.keySet().forEach(tokenId -> rebuilt.add(TOKEN_KEY + tokenId));
+        userCutoffs.keySet().forEach(userId -> rebuilt.add(USER_KEY + userId));
+        filter = rebuilt;
+        return revokedTokens.size();
+    }
+
+    private static Long issuedAtMillis(Claims claims) {
+        Long issuedAtMs = claims.get(JwtUtils.CLAIM_ISSUED_AT_MS, Long.class);
+        if (issuedAtMs != null) {
+            return issuedAtMs;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record UserCutoff(long issuedUpToMs, long expiresAt) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.travel.management.security;
+
+import com.travel.management.Utils.TokenBucketLimiter;
+import com.travel.management.config.RateLimitProperties;
+import com.travel.management.exception.TooManyRequestsException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+
+/**
+ * Per-endpoint limits for the unauthenticated auth endpoints that cost us a
+ * BCrypt check or an email. Controllers call {@link #check} before doing any
+ * other work, so rejected requests never reach the database. Per-IP and
+ * per-email buckets live in separate limiters, so a flood of made-up email
+ * addresses cannot crowd out the per-IP limits.
+ */
+@Component
+@Slf4j
+public class AuthRateLimiter {
+    public static final String LOGIN = "login";
+    public static final String FORGOT_PASSWORD = "forgot-password";
+    public static final String RESEND_VERIFICATION_CODE = "resend-verification-code";
+    public static final String RESEND_PASSWORD_RESET_CODE = "resend-password-reset-code";
+
+    private final RateLimitProperties properties;
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter emailLimiter;
+
+    public AuthRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.ipLimiter = new TokenBucketLimiter(properties.getMaxBuckets(), properties.getStripes());
+        this.emailLimiter = new TokenBucketLimiter(properties.getMaxEmailBuckets(), properties.getStripes());
+    }
+
+    public void check(String endpoint, HttpServletRequest request, String email) {
+        RateLimitProperties.EndpointLimit limit = properties.getEndpoints().get(endpoint);
+        if (!properties.isEnabled() || limit == null) {
+            return;
+        }
+        long windowMs = limit.getWindow().toMillis();
+
+        String clientIp = clientIp(request);
+        if (limit.getPerIp() > 0 && clientIp != null
+                && !ipLimiter.tryAcquire(endpoint + "|ip|" + clientIp, limit.getPerIp(), windowMs)) {
+            log.warn("Rate limit hit on {} for ip {}", endpoint, clientIp);
+            throw new TooManyRequestsException("Too many requests. Please try again later.");
+        }
+        if (limit.getPerEmail() > 0 && email != null && !email.isBlank()
+                && !emailLimiter.tryAcquire(endpoint + "|email|" + email.trim().toLowerCase(Locale.ROOT),
+                limit.getPerEmail(), windowMs)) {
+            log.warn("Rate limit hit on {} for email {}", endpoint, email);
+            throw new TooManyRequestsException("Too many requests. Please try again later.");
+        }
+    }
+
+    /**
+     * The client address: the last entry of the configured proxy header, which
+     * is the one our own proxy appended, or the connection's address.
+     */
+    public String clientIp(HttpServletRequest request) {
+        String header = properties.getClientIpHeader();
+        if (StringUtils.hasText(header)) {
+            String forwarded = request.getHeader(header);
+            if (StringUtils.hasText(forwarded)) {
+                String last = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+                if (!last.isEmpty()) {
+                    return last;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-interval:60000}")
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        emailLimiter.evictIdle();
+    }
+}
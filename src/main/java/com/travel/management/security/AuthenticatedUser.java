@@ -0,0 +1,66 @@
+package com.travel.management.security;
+
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Principal stored in the security context. Besides the email and authorities
+ * it keeps the user id and the security epoch the details were loaded with,
+ * so they can be written into (and rebuilt from) the access token.
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+    private final Long id;
+    private final String email;
+    private String password;
+    private final List<GrantedAuthority> authorities;
+    private final long securityEpoch;
+    private final boolean enabled;
+
+    public AuthenticatedUser(Long id, String email, String password,
+                             Collection<String> roles, long securityEpoch, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.authorities = roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableList());
+        this.securityEpoch = securityEpoch;
+        this.enabled = enabled;
+    }
+
+    public Set<String> getRoles() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        // Mirrors the previous UserDetails mapping: unverified accounts are treated as locked
+        return enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.travel.management.security;
+
+import com.travel.management.model.Role;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * The caller of the current request, resolved once from the security context.
+ * Services use it for ownership and role checks instead of reloading the user.
+ */
+@Getter
+public class CurrentUser {
+    private final Long id;
+    private final String email;
+    private final Set<String> roles;
+
+    public CurrentUser(Long id, String email, Set<String> roles) {
+        this.id = id;
+        this.email = email;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public boolean isAdmin() {
+        return roles.contains(Role.RoleType.ROLE_ADMIN.name());
+    }
+
+    public boolean isManager() {
+        return roles.contains(Role.RoleType.ROLE_MANAGER.name());
+    }
+
+    public boolean isAdminOrManager() {
+        return isAdmin() || isManager();
+    }
+
+    public boolean isTourist() {
+        return roles.contains(Role.RoleType.ROLE_TOURIST.name());
+    }
+}
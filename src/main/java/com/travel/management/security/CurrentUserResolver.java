@@ -0,0 +1,64 @@
+package com.travel.management.security;
+
+import com.travel.management.model.User;
+import com.travel.management.repository.UserRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.stream.Collectors;
+
+/**
+ * Turns the authenticated principal into a {@link CurrentUser}. The principal
+ * set by AuthTokenFilter already carries id and roles, so normally no query is
+ * needed; the result is kept on the request so it is built at most once.
+ */
+@Component
+public class CurrentUserResolver {
+    private static final String REQUEST_ATTRIBUTE = CurrentUser.class.getName();
+
+    private final UserRepository userRepository;
+
+    public CurrentUserResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public CurrentUser current() {
+        return resolve(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    public CurrentUser resolve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new RuntimeException("User not found");
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object cached = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached instanceof CurrentUser currentUser
+                    && currentUser.getEmail().equals(authentication.getName())) {
+                return currentUser;
+            }
+        }
+
+        CurrentUser currentUser = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? new CurrentUser(principal.getId(), principal.getEmail(), principal.getRoles())
+                : loadCurrentUser(authentication.getName());
+
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE, currentUser, RequestAttributes.SCOPE_REQUEST);
+        }
+        return currentUser;
+    }
+
+    private CurrentUser loadCurrentUser(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return new CurrentUser(user.getId(), user.getEmail(),
+                user.getRoles().stream()
+                        .map(role -> role.getRoleType().name())
+                        .collect(Collectors.toSet()));
+    }
+}
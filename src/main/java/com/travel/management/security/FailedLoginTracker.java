@@ -0,0 +1,106 @@
+package com.travel.management.security;
+
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.Utils.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Counts failed logins in memory over a sliding window, per account and per
+ * client IP. The account only needs a database write when it crosses the
+ * threshold and gets locked, not on every bad password.
+ */
+@Component
+public class FailedLoginTracker {
+    private final int accountThreshold;
+    private final int ipThreshold;
+    private final long windowMs;
+    private final ExpiringLruCache<String, FailureWindow> accountFailures;
+    private final ExpiringLruCache<String, FailureWindow> ipFailures;
+
+    public FailedLoginTracker(@Value("${security.login-failures.account-threshold:5}") int accountThreshold,
+                              @Value("${security.login-failures.ip-threshold:50}") int ipThreshold,
+                              @Value("${security.login-failures.window:900000}") long windowMs,
+                              @Value("${security.login-failures.max-tracked:50000}") int maxTracked,
+                              CacheStatsRegistry cacheStatsRegistry) {
+        this.accountThreshold = accountThreshold;
+        this.ipThreshold = ipThreshold;
+        this.windowMs = windowMs;
+        this.accountFailures = new ExpiringLruCache<>(maxTracked, windowMs);
+        this.ipFailures = new ExpiringLruCache<>(maxTracked, windowMs);
+        cacheStatsRegistry.register("failedLoginsByAccount", accountFailures);
+        cacheStatsRegistry.register("failedLoginsByIp", ipFailures);
+    }
+
+    /**
+     * Records a failed login and returns true when the account has now failed
+     * {@code accountThreshold} times within the window and should be locked.
+     */
+    public boolean recordFailure(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        if (clientIp != null && ipThreshold > 0) {
+            record(ipFailures, clientIp, ipThreshold, now);
+        }
+        return record(accountFailures, normalize(email), accountThreshold, now) >= accountThreshold;
+    }
+
+    public boolean isIpBlocked(String clientIp) {
+        if (clientIp == null || ipThreshold <= 0) {
+            return false;
+        }
+        FailureWindow window = ipFailures.get(clientIp);
+        return window != null && window.count(System.currentTimeMillis(), windowMs) >= ipThreshold;
+    }
+
+    public int getAccountThreshold() {
+        return accountThreshold;
+    }
+
+    public void reset(String email) {
+        accountFailures.invalidate(normalize(email));
+    }
+
+    private int record(ExpiringLruCache<String, FailureWindow> failures, String key, int threshold, long now) {
+        FailureWindow window = failures.computeIfAbsent(key, k -> new FailureWindow(threshold));
+        int count = window.add(now, windowMs);
+        // re-put so the entry lives for a full window after its latest failure
+        failures.put(key, window);
+        return count;
+    }
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ring of the most recent failure timestamps. Only the last
+     * {@code threshold} failures can decide a lockout, so older ones are
+     * overwritten.
+     */
+    private static final class FailureWindow {
+        private final long[] timestamps;
+        private int next;
+
+        private FailureWindow(int threshold) {
+            this.timestamps = new long[Math.max(1, threshold)];
+        }
+
+        private synchronized int add(long now, long windowMs) {
+            timestamps[next] = now;
+            next = (next + 1) % timestamps.length;
+            return count(now, windowMs);
+        }
+
+        private synchronized int count(long now, long windowMs) {
+            int count = 0;
+            for (long timestamp : timestamps) {
+                if (timestamp > 0 && now - timestamp < windowMs) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.travel.management.security;
+
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.Utils.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Last known security epoch per user id. An access token is only trusted on its
+ * own claims when its epoch matches the one recorded here; otherwise the user is
+ * loaded from the database again. Entries expire so that changes made by another
+ * instance are picked up after at most one ttl. Epochs only ever grow, so a
+ * recorded epoch is never lowered, and a revoked user stays revoked until its
+ * entry expires: a user loaded from a cache filled before a change committed
+ * must not bring the old epoch back.
+ */
+@Component
+public class SecurityEpochRegistry {
+    // Epoch that no token can carry, used for deleted users
+    private static final long REVOKED = -1L;
+
+    private final ExpiringLruCache<Long, Long> epochs;
+
+    public SecurityEpochRegistry(@Value("${jwt.epoch-cache.max-size:50000}") int maxSize,
+                                 @Value("${jwt.epoch-cache.ttl:300000}") long ttlMs,
+                                 CacheStatsRegistry cacheStatsRegistry) {
+        this.epochs = new ExpiringLruCache<>(maxSize, ttlMs);
+        cacheStatsRegistry.register("securityEpochs", epochs);
+    }
+
+    public boolean isCurrent(Long userId, long tokenEpoch) {
+        if (userId == null) {
+            return false;
+        }
+        Long known = epochs.get(userId);
+        return known != null && known != REVOKED && known == tokenEpoch;
+    }
+
+    public void record(Long userId, long epoch) {
+        if (userId != null) {
+            epochs.merge(userId, epoch, (known, recorded) -> known == REVOKED ? known : Math.max(known, recorded));
+        }
+    }
+
+    public void revoke(Long userId) {
+        if (userId != null) {
+            epochs.put(userId, REVOKED);
+        }
+    }
+}
@@ -12,10 +12,12 @@ import org.springframework.stereotype.Component;
 public class UserSecurity {
 
     private final UserService userService;
+    private final CurrentUserResolver currentUserResolver;
 
     @Autowired
-    public UserSecurity(UserService userService) {
+    public UserSecurity(UserService userService, CurrentUserResolver currentUserResolver) {
         this.userService = userService;
+        this.currentUserResolver = currentUserResolver;
     }
 
     public boolean isCurrentUser(Long userId) {
@@ -23,9 +25,8 @@ public class UserSecurity {
         if (authentication == null || !authentication.isAuthenticated()) {
             return false;
         }
-        String currentUserEmail = authentication.getName(); // Assuming email is the principal from JWT
-        User currentUser = userService.getUserByEmail(currentUserEmail);
-        return currentUser != null && currentUser.getId().equals(userId);
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
+        return currentUser.getId().equals(userId);
     }
 
     public boolean isTouristUser(Long userId) {
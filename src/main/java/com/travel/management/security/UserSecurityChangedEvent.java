@@ -0,0 +1,8 @@
+package com.travel.management.security;
+
+/**
+ * Published when a user's roles, credentials, account state or existence change,
+ * so anything caching that user's security details can drop it.
+ */
+public record UserSecurityChangedEvent(String email) {
+}
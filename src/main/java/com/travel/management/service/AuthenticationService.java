@@ -3,58 +3,84 @@ package com.travel.management.service;
 import com.travel.management.Utils.JwtUtils;
 import com.travel.management.dto.*;
 import com.travel.management.exception.*;
+import com.travel.management.model.OneTimeCode;
 import com.travel.management.model.User;
 import com.travel.management.repository.UserRepository;
+import com.travel.management.security.AuthenticatedUser;
+import com.travel.management.security.FailedLoginTracker;
+import com.travel.management.security.PasswordHashingExecutor;
+import com.travel.management.security.UserSecurityChangedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.auth.InvalidCredentialsException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class AuthenticationService {
-    private final AuthenticationManager authenticationManager;
     private final UserService userService;
     private final UserRepository userRepository;
     private final JwtUtils jwtUtils;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RefreshTokenService refreshTokenService;
+    private final FailedLoginTracker failedLoginTracker;
+    private final OneTimeCodeService oneTimeCodeService;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
 
     @Autowired
-    public AuthenticationService(AuthenticationManager authenticationManager,
-                                 UserService userService,
+    public AuthenticationService(UserService userService,
                                  UserRepository userRepository, JwtUtils jwtUtils,
-                                 PasswordEncoder passwordEncoder
-                                 , EmailService emailService) {
-        this.authenticationManager = authenticationManager;
+                                 PasswordHashingExecutor passwordHashingExecutor,
+                                 EmailService emailService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 RefreshTokenService refreshTokenService,
+                                 FailedLoginTracker failedLoginTracker,
+                                 OneTimeCodeService oneTimeCodeService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.jwtUtils = jwtUtils;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
         this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
+        this.refreshTokenService = refreshTokenService;
+        this.failedLoginTracker = failedLoginTracker;
+        this.oneTimeCodeService = oneTimeCodeService;
     }
 
-    public LoginResponse authenticate(LoginRequest loginRequest) throws AccountLockedException, InvalidCredentialsException {
+    public LoginResponse authenticate(LoginRequest loginRequest, String clientIp)
+            throws AccountLockedException, InvalidCredentialsException {
         try {
             log.info("Attempting authentication for email: {}", loginRequest.getEmail());
 
-            User user = userService.getUserByEmail(loginRequest.getEmail());
+            if (failedLoginTracker.isIpBlocked(clientIp)) {
+                throw new TooManyRequestsException("Too many failed login attempts. Please try again later.");
+            }
+
+            User user;
+            try {
+                user = userService.getUserByEmail(loginRequest.getEmail());
+            } catch (UserDoesNotExistException e) {
+                failedLoginTracker.recordFailure(loginRequest.getEmail(), clientIp);
+                throw e;
+            }
+            boolean hasFailedAttempts = user.getFailedLoginAttempts() > 0 || user.getLockoutTime() != null;
 
             // Check if account is locked due to failed login attempts
             if (!user.isAccountNonLocked()) {
@@ -62,50 +88,61 @@ public class AuthenticationService {
                         user.getLockoutTime().isAfter(LocalDateTime.now())) {
                     throw new AccountLockedException("Account is temporarily locked. Please try again later.");
                 }
-                // Reset lockout if time has expired
+                // Lockout has expired; the reset is saved together with the login outcome below
                 user.resetFailedAttempts();
-                userService.updateUser(user);
             }
 
-            // Test password match before authentication
-            boolean passwordMatches = passwordEncoder.matches(loginRequest.getPassword(), user.getPassword());
+            // The only BCrypt check of the login, run on the bounded hashing pool
+            boolean passwordMatches = passwordHashingExecutor.matches(loginRequest.getPassword(), user.getPassword());
             log.info("Password match result: {}", passwordMatches);
 
             if (!passwordMatches) {
-                user.incrementFailedAttempts();
-                userService.updateUser(user);
+                // Failures are counted in memory; the user row is only written when the account locks
+                if (failedLoginTracker.recordFailure(user.getEmail(), clientIp)) {
+                    user.lockOut(failedLoginTracker.getAccountThreshold());
+                    userService.updateUser(user);
+                    failedLoginTracker.reset(user.getEmail());
+                }
                 throw new InvalidCredentialsException("Invalid email or password");
             }
 
-            // Reset failed attempts on successful login
-            if (user.getFailedLoginAttempts() > 0) {
-                user.resetFailedAttempts();
-                userService.updateUser(user);
+            if (!user.isEnabled()) {
+                throw new LockedException("User account is locked");
             }
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+            AuthenticatedUser principal = new AuthenticatedUser(
+                    user.getId(),
+                    user.getEmail(),
+                    null,
+                    user.getRoles().stream()
+                            .map(role -> role.getRoleType().name())
+                            .collect(Collectors.toSet()),
+                    user.getSecurityEpoch(),
+                    user.isEnabled());
+            Authentication authentication = new UsernamePasswordAuthenticationToken(
+                    principal, null, principal.getAuthorities());
 
             log.info("Authentication successful");
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String jwt = jwtUtils.generateJwtToken(authentication);
-            String refreshToken = jwtUtils.generateRefreshToken();
+            // Each login is its own session; the user row is only written when there are attempts to reset
+            RefreshTokenService.IssuedRefreshToken refreshToken =
+                    refreshTokenService.createSession(user, loginRequest.getDeviceId());
+            String jwt = jwtUtils.generateJwtToken(authentication, refreshToken.sessionId());
 
-            user.setRefreshToken(refreshToken);
-            user.setRefreshTokenExpiry(LocalDateTime.now().plusDays(7));
-            userService.updateUser(user);
+            failedLoginTracker.reset(user.getEmail());
+            if (hasFailedAttempts) {
+                user.resetFailedAttempts();
+                userService.updateUser(user);
+            }
 
-            Set<String> authorities = userDetails.getAuthorities().stream()
-                    .map(GrantedAuthority::getAuthority)
-                    .collect(Collectors.toSet());
+            Set<String> authorities = principal.getRoles();
 
             log.info("User authorities: {}", authorities);
 
             return new LoginResponse(
                     jwt,
-                    refreshToken,
+                    refreshToken.token(),
                     "Bearer",
                     3600L,
                     user.getEmail(),
@@ -118,104 +155,87 @@ public class AuthenticationService {
     }
 
     public ApiResponse sendVerificationCode(String email) {
-        User user = userService.getUserByEmail(email);
-        String verificationCode = generateVerificationCode();
-
-        user.setVerification(Long.parseLong(verificationCode));
-        user.setVerificationCodeExpiry(LocalDateTime.now().plusHours(1));
-        userService.updateUser(user);
+        if (!userRepository.existsByEmail(email)) {
+            throw new UserDoesNotExistException();
+        }
+        OneTimeCode verificationCode = oneTimeCodeService.issue(
+                email, OneTimeCode.Purpose.EMAIL_VERIFICATION, Duration.ofHours(1));
 
-        emailService.sendVerificationCode(email, verificationCode);
+        emailService.sendVerificationCode(email, verificationCode.getCode());
 
         return new ApiResponse(
                 true,
                 "Verification code sent successfully. Valid for 1 hour.",
                 LocalDateTime.now(),
-                Map.of("expiresAt", user.getVerificationCodeExpiry())
+                Map.of("expiresAt", verificationCode.getExpiresAt())
         );
     }
 
 
+    @Transactional(noRollbackFor = IncorrectVerificationCodeException.class)
     public ApiResponse verifyEmail(EmailVerificationRequest request) {
-        User user = userService.getUserByEmail(request.getEmail());
+        OneTimeCodeService.VerificationResult result = oneTimeCodeService.verify(
+                request.getEmail(), OneTimeCode.Purpose.EMAIL_VERIFICATION, request.getCode());
 
-        if (user.getVerificationCodeExpiry().isBefore(LocalDateTime.now())) {
+        if (result == OneTimeCodeService.VerificationResult.EXPIRED) {
             throw new TokenExpiredException("Verification code has expired");
         }
-
-        if (user.getVerification() != Long.parseLong(request.getCode())) {
+        if (result != OneTimeCodeService.VerificationResult.VERIFIED) {
             throw new IncorrectVerificationCodeException();
         }
 
-        user.setEnabled(true);
-        user.setVerification(0);
-        userService.updateUser(user);
+        userRepository.enableByEmail(request.getEmail());
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(request.getEmail()));
 
         return new ApiResponse(true, "Email verified successfully",
                 LocalDateTime.now(), null);
     }
 
     public ApiResponse initiatePasswordReset(PasswordResetRequest request) {
-        User user = userService.getUserByEmail(request.getEmail());
-        String resetCode = generateVerificationCode();
-
-        user.setResetPasswordToken(resetCode);
-        user.setResetPasswordTokenExpiry(LocalDateTime.now().plusMinutes(15));
-        user.setResetPasswordAttempts(0);
-        userService.updateUser(user);
+        if (!userRepository.existsByEmail(request.getEmail())) {
+            throw new UserDoesNotExistException();
+        }
+        OneTimeCode resetCode = oneTimeCodeService.issue(
+                request.getEmail(), OneTimeCode.Purpose.PASSWORD_RESET, Duration.ofMinutes(15));
 
-        emailService.sendPasswordResetCode(request.getEmail(), resetCode);
+        emailService.sendPasswordResetCode(request.getEmail(), resetCode.getCode());
 
         return new ApiResponse(
                 true,
                 "Password reset code sent successfully. Valid for 15 minutes.",
                 LocalDateTime.now(),
-                Map.of("expiresAt", user.getResetPasswordTokenExpiry())
+                Map.of("expiresAt", resetCode.getExpiresAt())
         );
     }
 
+    // Failed attempts and lockouts must be kept even though the request fails
+    @Transactional(noRollbackFor = {AccountLockedException.class, TokenExpiredException.class,
+            IncorrectVerificationCodeException.class})
     public ApiResponse resetPassword(PasswordResetVerificationRequest request) {
-        User user = userService.getUserByEmail(request.getEmail());
-
-        // Check for lockout due to too many reset attempts
-        if (user.getResetPasswordAttempts() >= 5) {
-            user.setLockoutTime(LocalDateTime.now().plusMinutes(15));
-            userService.updateUser(user);
-            throw new AccountLockedException("Too many reset attempts. Please try again after 15 minutes.");
-        }
+        String email = request.getEmail();
 
         // Check if account is locked
-        if (!user.isAccountNonLocked()) {
-            if (user.getLockoutTime() != null &&
-                    user.getLockoutTime().isAfter(LocalDateTime.now())) {
-                throw new AccountLockedException("Account is temporarily locked. Please try again later.");
-            }
-        }
-
-        if (user.getResetPasswordTokenExpiry().isBefore(LocalDateTime.now())) {
-            throw new TokenExpiredException("Reset code has expired");
+        if (userRepository.existsByEmailAndLockoutTimeAfter(email, LocalDateTime.now())) {
+            throw new AccountLockedException("Account is temporarily locked. Please try again later.");
         }
 
-        if (!user.getResetPasswordToken().equals(request.getCode())) {
-            user.setResetPasswordAttempts(user.getResetPasswordAttempts() + 1);
-            userService.updateUser(user);
-            throw new IncorrectVerificationCodeException();
+        OneTimeCodeService.VerificationResult result = oneTimeCodeService.verify(
+                email, OneTimeCode.Purpose.PASSWORD_RESET, request.getCode());
+        switch (result) {
+            case TOO_MANY_ATTEMPTS -> {
+                userRepository.lockUntil(email, LocalDateTime.now().plusMinutes(15));
+                eventPublisher.publishEvent(new UserSecurityChangedEvent(email));
+                throw new AccountLockedException("Too many reset attempts. Please try again after 15 minutes.");
+            }
+            case EXPIRED -> throw new TokenExpiredException("Reset code has expired");
+            case INVALID -> throw new IncorrectVerificationCodeException();
+            case VERIFIED -> {
+            }
         }
 
-        // Use setPassword to update password with history check
-        userService.setPassword(user.getEmail(), request.getNewPassword());
-
-        // Reset security fields
-        user.setResetPasswordToken(null);
-        user.setResetPasswordTokenExpiry(null);
-        user.setResetPasswordAttempts(0);
-        user.setLockoutTime(null);
-        userService.updateUser(user);
+        // Use setPassword to update password with history check; a reused password rolls the code back
+        userService.setPassword(email, request.getNewPassword());
 
         return new ApiResponse(true, "Password reset successfully", LocalDateTime.now(), null);
     }
-
-    private String generateVerificationCode() {
-        return String.format("%06d", new Random().nextInt(999999));
-    }
 }
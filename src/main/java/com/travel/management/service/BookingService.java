@@ -1,5 +1,6 @@
 package com.travel.management.service;
 
+import com.travel.management.Utils.ScrollCursor;
 import com.travel.management.dto.*;
 import com.travel.management.exception.DuplicateBookingException;
 import com.travel.management.exception.EmailFailedToSendException;
@@ -7,10 +8,14 @@ import com.travel.management.exception.ResourceNotFoundException;
 import com.travel.management.model.*;
 import com.travel.management.model.Package;
 import com.travel.management.repository.*;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
 import jakarta.xml.bind.ValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -19,30 +24,38 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Service
 @Transactional
 @Slf4j
 public class BookingService {
+    // Columns that are never null, the only ones a cursor can seek on
+    private static final Set<String> CURSOR_SORT_PROPERTIES =
+            Set.of("createdAt", "bookingDateTime", "totalPrice", "status");
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final TripRepository tripRepository;
     private final PackageRepository packageRepository;
     private final PaymentRepository paymentRepository;
     private final EmailService emailService;
+    private final CurrentUserResolver currentUserResolver;
 
     public BookingService(BookingRepository bookingRepository,
                           UserRepository userRepository,
                           TripRepository tripRepository,
                           PackageRepository packageRepository,
                           PaymentRepository paymentRepository,
-                          EmailService emailService) {
+                          EmailService emailService,
+                          CurrentUserResolver currentUserResolver) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.tripRepository = tripRepository;
         this.packageRepository = packageRepository;
         this.paymentRepository = paymentRepository;
         this.emailService = emailService;
+        this.currentUserResolver = currentUserResolver;
     }
 
     public BookingDTO createTripBooking(BookingCreateRequest request, Authentication authentication) {
@@ -126,11 +139,26 @@ public class BookingService {
     }
 
     public Page<BookingDTO> getUserBookings(Authentication authentication, Pageable pageable) {
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
         return bookingRepository.findByUserId(user.getId(), pageable)
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Cursor-paginated variant of {@link #getUserBookings(Authentication, Pageable)}.
+     * See {@link ScrollCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<BookingDTO> getUserBookings(Authentication authentication, String cursor, Pageable pageable) {
+        CurrentUser user = currentUserResolver.resolve(authentication);
+        Sort sort = ScrollCursor.sortFor(
+                pageable, Sort.by(Sort.Direction.DESC, "createdAt"), CURSOR_SORT_PROPERTIES);
+        return ScrollCursor.toSlice(
+                bookingRepository.findByUserId(user.getId(), ScrollCursor.decode(cursor, sort), sort,
+                        Limit.of(pageable.getPageSize())),
+                this::convertToDTO);
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     public Page<BookingAdminDTO> getAllBookings(Booking.BookingStatus status,
                                                 LocalDateTime startDate,
@@ -146,7 +174,7 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
 
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
         validateBookingStatusUpdate(booking, user, newStatus);
 
         booking.setStatus(newStatus);
@@ -192,10 +220,8 @@ public class BookingService {
         }
     }
 
-    private void validateBookingStatusUpdate(Booking booking, User user, Booking.BookingStatus newStatus) {
-        boolean isAdminOrManager = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+    private void validateBookingStatusUpdate(Booking booking, CurrentUser user, Booking.BookingStatus newStatus) {
+        boolean isAdminOrManager = user.isAdminOrManager();
 
         if (!isAdminOrManager && !booking.getUser().getId().equals(user.getId())) {
             try {
@@ -276,9 +302,9 @@ public class BookingService {
         return booking.getTrip() != null ? "Trip" : "Package";
     }
 
+    // Reference to the caller's row; the first property access loads it once for the response
     private User getUserFromAuthentication(Authentication authentication) {
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return userRepository.getReferenceById(currentUserResolver.resolve(authentication).getId());
     }
 }
 
@@ -0,0 +1,37 @@
+package com.travel.management.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically removes catalog change-log entries every consumer has read, in
+ * small batches.
+ */
+@Component
+@Slf4j
+public class CatalogChangeCompactor {
+    private final CatalogChangeLog catalogChangeLog;
+    private final int batchSize;
+
+    public CatalogChangeCompactor(CatalogChangeLog catalogChangeLog,
+                                  @Value("${catalog.changes.compaction-batch-size:500}") int batchSize) {
+        this.catalogChangeLog = catalogChangeLog;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.changes.compaction-interval:3600000}")
+    public void compact() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = catalogChangeLog.compactBatch(batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Compacted {} catalog change-log entries", total);
+        }
+    }
+}
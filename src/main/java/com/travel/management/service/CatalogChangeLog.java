@@ -0,0 +1,138 @@
+package com.travel.management.service;
+
+import com.travel.management.model.CatalogChange;
+import com.travel.management.model.CatalogChangeSequence;
+import com.travel.management.repository.CatalogChangeRepository;
+import com.travel.management.repository.CatalogChangeSequenceRepository;
+import com.travel.management.repository.CatalogConsumerRepository;
+import com.travel.management.repository.PackageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of catalog mutations behind {@code /api/catalog/changes}.
+ * Entries are written in the transaction of the mutation itself, so a change
+ * is in the log exactly when it is in the catalog, and numbered under a row
+ * lock on {@link CatalogChangeSequence} so numbers commit in order.
+ */
+@Service
+@Slf4j
+public class CatalogChangeLog {
+    private final CatalogChangeRepository changeRepository;
+    private final CatalogChangeSequenceRepository sequenceRepository;
+    private final CatalogConsumerRepository consumerRepository;
+    private final PackageRepository packageRepository;
+    private final Duration consumerRetention;
+
+    public CatalogChangeLog(CatalogChangeRepository changeRepository,
+                            CatalogChangeSequenceRepository sequenceRepository,
+                            CatalogConsumerRepository consumerRepository,
+                            PackageRepository packageRepository,
+                            @Value("${catalog.changes.consumer-retention:P30D}") Duration consumerRetention) {
+        this.changeRepository = changeRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.consumerRepository = consumerRepository;
+        this.packageRepository = packageRepository;
+        this.consumerRetention = consumerRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (!sequenceRepository.existsById(CatalogChangeSequence.SINGLETON_ID)) {
+            sequenceRepository.save(new CatalogChangeSequence(CatalogChangeSequence.SINGLETON_ID, 0, 0));
+            log.info("Catalog change log initialized");
+        }
+    }
+
+    /**
+     * Packages embed their trips, so every package holding the trip changes
+     * with it. Call before the trip is deleted, while its packages can still
+     * be found.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tripChanged(Long tripId, boolean deleted) {
+        append(CatalogChange.ItemType.TRIP, tripId,
+                deleted ? CatalogChange.Operation.DELETE : CatalogChange.Operation.UPSERT);
+        packageRepository.findPackagesByTripId(tripId).forEach(pack ->
+                append(CatalogChange.ItemType.PACKAGE, pack.getId(), CatalogChange.Operation.UPSERT));
+    }
+
+    /**
+     * Newly created trips, which no package can hold yet. One lock and one
+     * batch of inserts for the lot.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tripsCreated(List<Long> tripIds) {
+        CatalogChangeSequence sequence = lockSequence();
+        LocalDateTime now = LocalDateTime.now();
+        List<CatalogChange> changes = new ArrayList<>(tripIds.size());
+        long next = sequence.getLastSequence();
+        for (Long tripId : tripIds) {
+            changes.add(new CatalogChange(++next, CatalogChange.ItemType.TRIP, tripId,
+                    CatalogChange.Operation.UPSERT, now));
+        }
+        sequence.setLastSequence(next);
+        changeRepository.saveAll(changes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void packageChanged(Long packageId, boolean deleted) {
+        append(CatalogChange.ItemType.PACKAGE, packageId,
+                deleted ? CatalogChange.Operation.DELETE : CatalogChange.Operation.UPSERT);
+    }
+
+    /**
+     * Removes up to {@code batchSize} entries every consumer seen within the
+     * retention period has already read. Consumers not seen for longer are
+     * forgotten and have to resync from a fresh cursor.
+     */
+    @Transactional
+    public int compactBatch(int batchSize) {
+        CatalogChangeSequence sequence = sequenceRepository.findForUpdate(CatalogChangeSequence.SINGLETON_ID)
+                .orElse(null);
+        // the first run can come before initialize()
+        if (sequence == null) {
+            return 0;
+        }
+        consumerRepository.deleteNotSeenSince(LocalDateTime.now().minus(consumerRetention));
+        Long minPosition = consumerRepository.findMinPosition();
+        // with no consumer left nobody needs the log, up to the newest entry
+        long through = minPosition != null ? minPosition : sequence.getLastSequence();
+        if (through <= sequence.getCompactedThrough()) {
+            return 0;
+        }
+        List<Long> sequences = changeRepository.findSequencesThrough(through, PageRequest.of(0, batchSize));
+        if (!sequences.isEmpty()) {
+            changeRepository.deleteAllByIdInBatch(sequences);
+        }
+        // the last batch reaches the target; earlier ones only as far as they deleted
+        sequence.setCompactedThrough(sequences.size() < batchSize
+                ? through
+                : sequences.get(sequences.size() - 1));
+        return sequences.size();
+    }
+
+    private void append(CatalogChange.ItemType itemType, Long itemId, CatalogChange.Operation operation) {
+        CatalogChangeSequence sequence = lockSequence();
+        long next = sequence.getLastSequence() + 1;
+        sequence.setLastSequence(next);
+        changeRepository.save(new CatalogChange(next, itemType, itemId, operation, LocalDateTime.now()));
+    }
+
+    private CatalogChangeSequence lockSequence() {
+        return sequenceRepository.findForUpdate(CatalogChangeSequence.SINGLETON_ID)
+                .orElseThrow(() -> new IllegalStateException("Catalog change log is not initialized"));
+    }
+}
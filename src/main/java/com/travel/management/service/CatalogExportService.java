@@ -0,0 +1,234 @@
+package com.travel.management.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.management.dto.PackageExportRow;
+import com.travel.management.dto.TripListRow;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.repository.TripRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full trip and package dumps for partners. Rows are read through a
+ * forward-only cursor as projections that are never attached to the
+ * persistence context, and written out as they arrive, so memory use does not
+ * grow with the catalog. Both formats share the column names; the trip columns
+ * are the ones the bulk import reads.
+ */
+@Service
+public class CatalogExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Column<TripListRow>> TRIP_COLUMNS = List.of(
+            new Column<>("id", TripListRow::id),
+            new Column<>("title", TripListRow::title),
+            new Column<>("destination", TripListRow::address),
+            new Column<>("description", TripListRow::description),
+            new Column<>("price", TripListRow::price),
+            new Column<>("duration", TripListRow::duration),
+            new Column<>("locationLink", TripListRow::locationLink),
+            new Column<>("tips", TripListRow::tips),
+            new Column<>("startTime", TripListRow::startTime),
+            new Column<>("endTime", TripListRow::endTime),
+            new Column<>("activity", TripListRow::activity),
+            new Column<>("latitude", TripListRow::latitude),
+            new Column<>("longitude", TripListRow::longitude),
+            new Column<>("image", TripListRow::image),
+            new Column<>("available", TripListRow::available),
+            new Column<>("createdAt", TripListRow::createdAt),
+            new Column<>("updatedAt", TripListRow::updatedAt),
+            new Column<>("version", TripListRow::version),
+            new Column<>("createdById", TripListRow::creatorId),
+            new Column<>("createdByEmail", TripListRow::creatorEmail));
+
+    private static final List<Column<PackageRecord>> PACKAGE_COLUMNS = List.of(
+            new Column<>("id", record -> record.row().id()),
+            new Column<>("name", record -> record.row().name()),
+            new Column<>("description", record -> record.row().description()),
+            new Column<>("price", record -> record.row().price()),
+            new Column<>("category", record -> record.row().category()),
+            new Column<>("totalDuration", record -> record.row().totalDuration()),
+            new Column<>("status", record -> record.row().status()),
+            new Column<>("createdAt", record -> record.row().createdAt()),
+            new Column<>("updatedAt", record -> record.row().updatedAt()),
+            new Column<>("version", record -> record.row().version()),
+            new Column<>("createdById", record -> record.row().creatorId()),
+            new Column<>("createdByEmail", record -> record.row().creatorEmail()),
+            new Column<>("tripIds", PackageRecord::tripIds));
+
+    private final TripRepository tripRepository;
+    private final PackageRepository packageRepository;
+    private final ObjectMapper objectMapper;
+
+    public CatalogExportService(TripRepository tripRepository,
+                                PackageRepository packageRepository,
+                                ObjectMapper objectMapper) {
+        this.tripRepository = tripRepository;
+        this.packageRepository = packageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTrips(OutputStream output, Format format, boolean gzip) throws IOException {
+        try (Stream<TripListRow> rows = tripRepository.streamListRows()) {
+            write(rows.iterator(), TRIP_COLUMNS, output, format, gzip);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPackages(OutputStream output, Format format, boolean gzip) throws IOException {
+        try (Stream<PackageExportRow> rows = packageRepository.streamExportRows()) {
+            write(new PackageRecords(rows.iterator()), PACKAGE_COLUMNS, output, format, gzip);
+        }
+    }
+
+    private <T> void write(Iterator<T> records, List<Column<T>> columns, OutputStream output,
+                           Format format, boolean gzip) throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                compressed != null ? compressed : output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writeCsv(records, columns, writer);
+        } else {
+            writeNdjson(records, columns, writer);
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+    }
+
+    private <T> void writeNdjson(Iterator<T> records, List<Column<T>> columns, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (records.hasNext()) {
+            T record = records.next();
+            generator.writeStartObject();
+            for (Column<T> column : columns) {
+                generator.writeFieldName(column.name());
+                writeJsonValue(generator, column.value().apply(record));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Double number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Boolean flag) {
+            generator.writeBoolean(flag);
+        } else if (value instanceof Collection<?> values) {
+            generator.writeStartArray();
+            for (Object element : values) {
+                writeJsonValue(generator, element);
+            }
+            generator.writeEndArray();
+        } else {
+            // strings, enums, and dates in ISO-8601 as the API writes them
+            generator.writeString(value.toString());
+        }
+    }
+
+    private <T> void writeCsv(Iterator<T> records, List<Column<T>> columns, Writer writer) throws IOException {
+        writeCsvRecord(writer, columns.stream().map(Column::name).toList());
+        List<String> values = new ArrayList<>(columns.size());
+        while (records.hasNext()) {
+            T record = records.next();
+            values.clear();
+            for (Column<T> column : columns) {
+                values.add(csvValue(column.value().apply(record)));
+            }
+            writeCsvRecord(writer, values);
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).collect(Collectors.joining(";"));
+        }
+        return value.toString();
+    }
+
+    private static void writeCsvRecord(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private record PackageRecord(PackageExportRow row, List<Long> tripIds) {
+    }
+
+    // Folds the consecutive rows of each package into one record with its trip ids
+    private static class PackageRecords implements Iterator<PackageRecord> {
+        private final Iterator<PackageExportRow> rows;
+        private PackageExportRow next;
+
+        PackageRecords(Iterator<PackageExportRow> rows) {
+            this.rows = rows;
+            this.next = rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public PackageRecord next() {
+            PackageExportRow first = next;
+            List<Long> tripIds = new ArrayList<>();
+            while (next != null && next.id().equals(first.id())) {
+                if (next.tripId() != null) {
+                    tripIds.add(next.tripId());
+                }
+                next = rows.hasNext() ? rows.next() : null;
+            }
+            return new PackageRecord(first, tripIds);
+        }
+    }
+}
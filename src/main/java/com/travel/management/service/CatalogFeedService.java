@@ -0,0 +1,170 @@
+package com.travel.management.service;
+
+import com.travel.management.dto.CatalogChangeDTO;
+import com.travel.management.dto.CatalogChangesDTO;
+import com.travel.management.exception.ChangeFeedExpiredException;
+import com.travel.management.model.CatalogChange;
+import com.travel.management.model.CatalogChangeSequence;
+import com.travel.management.model.CatalogConsumer;
+import com.travel.management.repository.CatalogChangeRepository;
+import com.travel.management.repository.CatalogChangeSequenceRepository;
+import com.travel.management.repository.CatalogConsumerRepository;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the {@link CatalogChangeLog} for clients keeping a local copy of the
+ * catalog. Only the latest entry per item is returned and upserts carry the
+ * item's current state, so a client that applies a batch in order ends up
+ * where the catalog was at {@code nextCursor}. Items the caller may not see
+ * (hidden since, or never visible) come back as deletes.
+ */
+@Service
+@Transactional
+public class CatalogFeedService {
+    private static final String DEFAULT_CONSUMER = "default";
+
+    private final CatalogChangeRepository changeRepository;
+    private final CatalogChangeSequenceRepository sequenceRepository;
+    private final CatalogConsumerRepository consumerRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final TripService tripService;
+    private final PackageService packageService;
+
+    public CatalogFeedService(CatalogChangeRepository changeRepository,
+                              CatalogChangeSequenceRepository sequenceRepository,
+                              CatalogConsumerRepository consumerRepository,
+                              CurrentUserResolver currentUserResolver,
+                              TripService tripService,
+                              PackageService packageService) {
+        this.changeRepository = changeRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.consumerRepository = consumerRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.tripService = tripService;
+        this.packageService = packageService;
+    }
+
+    /**
+     * Changes after {@code since}, at most {@code limit} log entries. Without
+     * {@code since} nothing is returned but the cursor of the current head,
+     * to be used after a full load of the catalog. Asking for the changes
+     * after a cursor also confirms everything up to it, which lets
+     * compaction remove those entries once every consumer has done so.
+     */
+    public CatalogChangesDTO getChanges(String since, String consumer, int limit, Authentication authentication) {
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
+        CatalogChangeSequence sequence = sequenceRepository.findById(CatalogChangeSequence.SINGLETON_ID)
+                .orElseThrow(() -> new IllegalStateException("Catalog change log is not initialized"));
+
+        if (!StringUtils.hasText(since)) {
+            recordPosition(currentUser, consumer, sequence.getLastSequence());
+            return CatalogChangesDTO.builder()
+                    .changes(List.of())
+                    .nextCursor(Long.toString(sequence.getLastSequence()))
+                    .hasMore(false)
+                    .build();
+        }
+
+        long position = parseCursor(since);
+        if (position > sequence.getLastSequence()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (position < sequence.getCompactedThrough()) {
+            throw expired();
+        }
+        recordPosition(currentUser, consumer, position);
+
+        List<CatalogChange> entries = changeRepository.findAfter(position, PageRequest.of(0, limit + 1));
+        // A compaction committed since the check above may have removed entries the read should have
+        // returned. Checking again after the read catches it; one committed later cannot affect the rows read.
+        if (position < sequenceRepository.findCompactedThrough(CatalogChangeSequence.SINGLETON_ID).orElse(0L)) {
+            throw expired();
+        }
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries = entries.subList(0, limit);
+        }
+        long nextPosition = entries.isEmpty() ? position : entries.get(entries.size() - 1).getSequence();
+
+        return CatalogChangesDTO.builder()
+                .changes(toChanges(entries, authentication))
+                .nextCursor(Long.toString(nextPosition))
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private List<CatalogChangeDTO> toChanges(List<CatalogChange> entries, Authentication authentication) {
+        // an item changed twice in the batch only needs its last entry
+        Map<String, CatalogChange> latest = new LinkedHashMap<>();
+        entries.forEach(entry -> latest.put(entry.getItemType() + ":" + entry.getItemId(), entry));
+
+        List<Long> tripIds = new ArrayList<>();
+        List<Long> packageIds = new ArrayList<>();
+        latest.values().stream()
+                .filter(entry -> entry.getOperation() == CatalogChange.Operation.UPSERT)
+                .forEach(entry -> (entry.getItemType() == CatalogChange.ItemType.TRIP ? tripIds : packageIds)
+                        .add(entry.getItemId()));
+        Map<Long, ?> trips = tripIds.isEmpty() ? Map.of() : tripService.getVisibleTripsById(tripIds, authentication);
+        Map<Long, ?> packages = packageIds.isEmpty()
+                ? Map.of()
+                : packageService.getVisiblePackagesById(packageIds, authentication);
+
+        return latest.values().stream()
+                .sorted(Comparator.comparingLong(CatalogChange::getSequence))
+                .map(entry -> {
+                    Object data = entry.getOperation() == CatalogChange.Operation.DELETE ? null
+                            : (entry.getItemType() == CatalogChange.ItemType.TRIP ? trips : packages)
+                                    .get(entry.getItemId());
+                    return CatalogChangeDTO.builder()
+                            .sequence(entry.getSequence())
+                            .type(entry.getItemType())
+                            .id(entry.getItemId())
+                            .operation(data != null ? CatalogChange.Operation.UPSERT : CatalogChange.Operation.DELETE)
+                            .data(data)
+                            .build();
+                })
+                .toList();
+    }
+
+    private void recordPosition(CurrentUser currentUser, String consumer, long position) {
+        String key = currentUser.getId() + ":" + (StringUtils.hasText(consumer) ? consumer : DEFAULT_CONSUMER);
+        if (key.length() > 191) {
+            throw new IllegalArgumentException("Consumer name is too long");
+        }
+        CatalogConsumer catalogConsumer = consumerRepository.findById(key)
+                .orElseGet(() -> new CatalogConsumer(key, position, null));
+        catalogConsumer.setPosition(position);
+        catalogConsumer.setLastSeenAt(LocalDateTime.now());
+        consumerRepository.save(catalogConsumer);
+    }
+
+    private static ChangeFeedExpiredException expired() {
+        return new ChangeFeedExpiredException(
+                "Changes after this cursor are no longer available. Reload the catalog and start over");
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            long position = Long.parseLong(cursor);
+            if (position < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
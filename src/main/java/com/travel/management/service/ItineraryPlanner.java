@@ -0,0 +1,379 @@
+package com.travel.management.service;
+
+import com.travel.management.dto.ItineraryDTO;
+import com.travel.management.search.TripGeoIndex;
+import com.travel.management.search.TripSearchDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds day-by-day itineraries that keep the travel between trips short.
+ * Trips with an opening time go on the day they open; trips without one join
+ * the nearest of those days that still has room, or else fill days of their
+ * own along a nearest-neighbour chain. Each day is then routed as its own
+ * task on a fork-join pool: nearest neighbour from every possible first stop
+ * gives a route, and 2-opt keeps reversing stretches of it while that makes
+ * it shorter without more stops missing their opening hours. Improvement stops
+ * once the time budget is spent, so large packages still answer in time.
+ */
+@Component
+@Slf4j
+public class ItineraryPlanner {
+    private final ForkJoinPool pool;
+    private final long timeBudgetNanos;
+    private final int stopsPerDay;
+    private final double travelSpeedKmh;
+    private final long visitMinutes;
+
+    public ItineraryPlanner(@Value("${itinerary.parallelism:0}") int parallelism,
+                            @Value("${itinerary.time-budget:2000}") long timeBudgetMs,
+                            @Value("${itinerary.stops-per-day:4}") int stopsPerDay,
+                            @Value("${itinerary.travel-speed-kmh:40}") double travelSpeedKmh,
+                            @Value("${itinerary.visit-minutes:90}") long visitMinutes) {
+        if (stopsPerDay < 1) {
+            throw new IllegalArgumentException("An itinerary day must hold at least one stop");
+        }
+        if (travelSpeedKmh <= 0) {
+            throw new IllegalArgumentException("Travel speed must be positive");
+        }
+        // Routing is CPU bound, so default to one worker per core
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.timeBudgetNanos = Duration.ofMillis(timeBudgetMs).toNanos();
+        this.stopsPerDay = stopsPerDay;
+        this.travelSpeedKmh = travelSpeedKmh;
+        this.visitMinutes = visitMinutes;
+    }
+
+    public ItineraryDTO plan(Collection<TripSearchDocument> trips) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        List<TripSearchDocument> located = new ArrayList<>();
+        List<Long> unrouted = new ArrayList<>();
+        trips.stream()
+                .sorted(Comparator.comparing(TripSearchDocument::id))
+                .forEach(trip -> {
+                    if (trip.latitude() != null && trip.longitude() != null) {
+                        located.add(trip);
+                    } else {
+                        unrouted.add(trip.id());
+                    }
+                });
+
+        List<RouteDay> tasks = assignDays(located).stream()
+                .map(day -> new RouteDay(day, deadline))
+                .toList();
+        pool.submit(() -> ForkJoinTask.invokeAll(tasks)).join();
+
+        List<ItineraryDTO.Day> days = new ArrayList<>(tasks.size());
+        double totalKm = 0;
+        boolean complete = true;
+        for (RouteDay task : tasks) {
+            ItineraryDTO.Day day = task.join();
+            day.setDay(days.size() + 1);
+            days.add(day);
+            totalKm += day.getDistanceKm();
+            complete &= task.complete;
+        }
+        if (!complete) {
+            log.debug("Itinerary of {} trips hit the time budget before the routes stopped improving",
+                    located.size());
+        }
+        return ItineraryDTO.builder()
+                .days(days)
+                .totalDistanceKm(roundKm(totalKm))
+                .unroutedTripIds(unrouted)
+                .complete(complete)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private List<PlannedDay> assignDays(List<TripSearchDocument> trips) {
+        TreeMap<LocalDate, List<TripSearchDocument>> dated = new TreeMap<>();
+        List<TripSearchDocument> flexible = new ArrayList<>();
+        for (TripSearchDocument trip : trips) {
+            if (trip.startTime() != null) {
+                dated.computeIfAbsent(trip.startTime().toLocalDate(), date -> new ArrayList<>()).add(trip);
+            } else {
+                flexible.add(trip);
+            }
+        }
+
+        List<TripSearchDocument> leftOver = new ArrayList<>();
+        for (TripSearchDocument trip : flexible) {
+            List<TripSearchDocument> nearest = null;
+            double nearestKm = Double.MAX_VALUE;
+            for (List<TripSearchDocument> day : dated.values()) {
+                double km = day.size() < stopsPerDay ? kmToCentroid(trip, day) : Double.MAX_VALUE;
+                if (km < nearestKm) {
+                    nearest = day;
+                    nearestKm = km;
+                }
+            }
+            if (nearest != null) {
+                nearest.add(trip);
+            } else {
+                leftOver.add(trip);
+            }
+        }
+
+        List<PlannedDay> days = new ArrayList<>();
+        dated.forEach((date, dayTrips) -> days.add(new PlannedDay(date, dayTrips)));
+        List<TripSearchDocument> chain = nearestNeighbourChain(leftOver);
+        for (int from = 0; from < chain.size(); from += stopsPerDay) {
+            days.add(new PlannedDay(null, chain.subList(from, Math.min(from + stopsPerDay, chain.size()))));
+        }
+        return days;
+    }
+
+    // Starts in the west so the chain sweeps across rather than doubling back
+    private static List<TripSearchDocument> nearestNeighbourChain(List<TripSearchDocument> trips) {
+        List<TripSearchDocument> remaining = new ArrayList<>(trips);
+        List<TripSearchDocument> chain = new ArrayList<>(trips.size());
+        remaining.stream()
+                .min(Comparator.comparingDouble(TripSearchDocument::longitude))
+                .ifPresent(chain::add);
+        remaining.removeAll(chain);
+        while (!remaining.isEmpty()) {
+            TripSearchDocument last = chain.get(chain.size() - 1);
+            TripSearchDocument next = remaining.stream()
+                    .min(Comparator.comparingDouble(trip -> km(last, trip)))
+                    .orElseThrow();
+            chain.add(next);
+            remaining.remove(next);
+        }
+        return chain;
+    }
+
+    private static double kmToCentroid(TripSearchDocument trip, List<TripSearchDocument> day) {
+        double latitude = day.stream().mapToDouble(TripSearchDocument::latitude).average().orElseThrow();
+        double longitude = day.stream().mapToDouble(TripSearchDocument::longitude).average().orElseThrow();
+        return TripGeoIndex.haversineKm(trip.latitude(), trip.longitude(), latitude, longitude);
+    }
+
+    private static double km(TripSearchDocument from, TripSearchDocument to) {
+        return TripGeoIndex.haversineKm(from.latitude(), from.longitude(), to.latitude(), to.longitude());
+    }
+
+    private static double roundKm(double km) {
+        return Math.round(km * 100) / 100.0;
+    }
+
+    private record PlannedDay(LocalDate date, List<TripSearchDocument> trips) {
+    }
+
+    private record Cost(int late, double km) {
+        boolean isBetterThan(Cost other) {
+            return late < other.late || (late == other.late && km < other.km - 1e-9);
+        }
+    }
+
+    /**
+     * Routes one day. Times are minutes since the earliest opening of the
+     * day's trips; NaN marks a trip without opening hours, and a day with
+     * none of them has no clock at all.
+     */
+    private final class RouteDay extends RecursiveTask<ItineraryDTO.Day> {
+        private final PlannedDay day;
+        private final long deadline;
+        private final double[][] km;
+        private final double[] opens;
+        private final double[] closes;
+        private final LocalDateTime dayStart;
+        private volatile boolean complete = true;
+
+        RouteDay(PlannedDay day, long deadline) {
+            this.day = day;
+            this.deadline = deadline;
+            List<TripSearchDocument> trips = day.trips();
+            int size = trips.size();
+            this.km = new double[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    km[i][j] = km(trips.get(i), trips.get(j));
+                    km[j][i] = km[i][j];
+                }
+            }
+            this.dayStart = trips.stream()
+                    .map(TripSearchDocument::startTime)
+                    .filter(Objects::nonNull)
+                    .min(Comparator.naturalOrder())
+                    .orElse(null);
+            this.opens = new double[size];
+            this.closes = new double[size];
+            for (int i = 0; i < size; i++) {
+                opens[i] = minutesSinceDayStart(trips.get(i).startTime());
+                closes[i] = minutesSinceDayStart(trips.get(i).endTime());
+            }
+        }
+
+        @Override
+        protected ItineraryDTO.Day compute() {
+            int size = day.trips().size();
+            int[] best = null;
+            Cost bestCost = null;
+            for (int first = 0; first < size; first++) {
+                if (best != null && System.nanoTime() > deadline) {
+                    complete = false;
+                    break;
+                }
+                int[] order = nearestNeighbour(first);
+                Cost cost = cost(order);
+                if (best == null || cost.isBetterThan(bestCost)) {
+                    best = order;
+                    bestCost = cost;
+                }
+            }
+
+            boolean improved = size > 2;
+            while (improved && complete) {
+                improved = false;
+                for (int i = 0; i < size - 1 && complete; i++) {
+                    for (int j = i + 1; j < size; j++) {
+                        reverse(best, i, j);
+                        Cost cost = cost(best);
+                        if (cost.isBetterThan(bestCost)) {
+                            bestCost = cost;
+                            improved = true;
+                        } else {
+                            reverse(best, i, j);
+                        }
+                    }
+                    if (System.nanoTime() > deadline) {
+                        complete = false;
+                    }
+                }
+            }
+            return toDay(best != null ? best : new int[0]);
+        }
+
+        // From the given first stop, always on to the closest stop that can still be reached while open
+        private int[] nearestNeighbour(int first) {
+            int size = km.length;
+            int[] order = new int[size];
+            boolean[] visited = new boolean[size];
+            order[0] = first;
+            visited[first] = true;
+            double clock = leave(firstArrival(first));
+            for (int k = 1; k < size; k++) {
+                int last = order[k - 1];
+                int next = -1;
+                boolean nextLate = true;
+                for (int candidate = 0; candidate < size; candidate++) {
+                    if (visited[candidate]) {
+                        continue;
+                    }
+                    boolean late = isLate(candidate, arrive(last, candidate, clock));
+                    if (next < 0 || (!late && nextLate)
+                            || (late == nextLate && km[last][candidate] < km[last][next])) {
+                        next = candidate;
+                        nextLate = late;
+                    }
+                }
+                order[k] = next;
+                visited[next] = true;
+                clock = leave(arrive(last, next, clock));
+            }
+            return order;
+        }
+
+        private Cost cost(int[] order) {
+            double distance = 0;
+            int late = 0;
+            double clock = 0;
+            for (int k = 0; k < order.length; k++) {
+                double arrival = k == 0 ? firstArrival(order[k]) : arrive(order[k - 1], order[k], clock);
+                if (k > 0) {
+                    distance += km[order[k - 1]][order[k]];
+                }
+                if (isLate(order[k], arrival)) {
+                    late++;
+                }
+                clock = leave(arrival);
+            }
+            return new Cost(late, distance);
+        }
+
+        private ItineraryDTO.Day toDay(int[] order) {
+            List<ItineraryDTO.Stop> stops = new ArrayList<>(order.length);
+            double distance = 0;
+            double clock = 0;
+            for (int k = 0; k < order.length; k++) {
+                int stop = order[k];
+                double leg = k == 0 ? 0 : km[order[k - 1]][stop];
+                double arrival = k == 0 ? firstArrival(stop) : arrive(order[k - 1], stop, clock);
+                distance += leg;
+                TripSearchDocument trip = day.trips().get(stop);
+                stops.add(ItineraryDTO.Stop.builder()
+                        .tripId(trip.id())
+                        .title(trip.title())
+                        .latitude(trip.latitude())
+                        .longitude(trip.longitude())
+                        .distanceFromPreviousKm(roundKm(leg))
+                        .arrival(dayStart != null ? dayStart.plusSeconds(Math.round(arrival * 60)) : null)
+                        .withinOpeningHours(!isLate(stop, arrival))
+                        .build());
+                clock = leave(arrival);
+            }
+            return ItineraryDTO.Day.builder()
+                    .date(day.date())
+                    .distanceKm(roundKm(distance))
+                    .stops(stops)
+                    .build();
+        }
+
+        // The day starts at the first stop, as it opens
+        private double firstArrival(int stop) {
+            return orZero(opens[stop]);
+        }
+
+        // Arrival at the next stop when leaving the last one at the clock, waiting for it to open if early
+        private double arrive(int last, int next, double clock) {
+            double arrival = clock + km[last][next] / travelSpeedKmh * 60;
+            return Double.isNaN(opens[next]) ? arrival : Math.max(arrival, opens[next]);
+        }
+
+        private double leave(double arrival) {
+            return arrival + visitMinutes;
+        }
+
+        private boolean isLate(int stop, double arrival) {
+            return !Double.isNaN(closes[stop]) && arrival > closes[stop];
+        }
+
+        private double minutesSinceDayStart(LocalDateTime time) {
+            return time == null || dayStart == null
+                    ? Double.NaN
+                    : Duration.between(dayStart, time).toSeconds() / 60.0;
+        }
+
+        private static double orZero(double minutes) {
+            return Double.isNaN(minutes) ? 0 : minutes;
+        }
+
+        private static void reverse(int[] order, int from, int to) {
+            for (int i = from, j = to; i < j; i++, j--) {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+    }
+}
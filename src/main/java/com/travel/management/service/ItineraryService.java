@@ -0,0 +1,127 @@
+package com.travel.management.service;
+
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.Utils.ExpiringLruCache;
+import com.travel.management.dto.CollectionStamp;
+import com.travel.management.dto.ItineraryDTO;
+import com.travel.management.dto.PackageTripsStamp;
+import com.travel.management.exception.PackageNotFoundException;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.security.CurrentUserResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Itineraries of packages and of ad-hoc trip selections, planned by
+ * {@link ItineraryPlanner}. Plans are cached under the version of the trip
+ * set they were built from, so a repeated view costs one version lookup and
+ * any change to the trips or the package membership plans afresh. Requests
+ * for a plan that is being built wait for it instead of planning it again.
+ * Tourists are only planned the available trips, under their own key.
+ */
+@Service
+public class ItineraryService {
+    private final PackageRepository packageRepository;
+    private final TripRepository tripRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final ItineraryPlanner itineraryPlanner;
+    private final ExpiringLruCache<String, ItineraryDTO> itineraries;
+    private final ConcurrentHashMap<String, CompletableFuture<ItineraryDTO>> planning = new ConcurrentHashMap<>();
+    private final int maxTrips;
+
+    public ItineraryService(PackageRepository packageRepository,
+                            TripRepository tripRepository,
+                            CurrentUserResolver currentUserResolver,
+                            ItineraryPlanner itineraryPlanner,
+                            @Value("${itinerary.cache-size:200}") int maxEntries,
+                            @Value("${itinerary.cache-ttl:3600000}") long ttlMs,
+                            @Value("${itinerary.max-trips:100}") int maxTrips,
+                            CacheStatsRegistry cacheStatsRegistry) {
+        this.packageRepository = packageRepository;
+        this.tripRepository = tripRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.itineraryPlanner = itineraryPlanner;
+        this.itineraries = new ExpiringLruCache<>(maxEntries, ttlMs);
+        this.maxTrips = maxTrips;
+        cacheStatsRegistry.register("itineraries", itineraries);
+    }
+
+    @Transactional(readOnly = true)
+    public ItineraryDTO planPackage(Long packageId, Authentication authentication) {
+        PackageTripsStamp stamp = packageRepository.findTripsStampById(packageId)
+                .orElseThrow(() -> new PackageNotFoundException(packageId));
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        if (!isAdminOrManager && !stamp.visible()) {
+            throw new PackageNotFoundException(packageId);
+        }
+        // counts unavailable trips too, so it is known before loading anything
+        if (stamp.tripCount() > maxTrips) {
+            throw new IllegalArgumentException("Packages of more than " + maxTrips + " trips cannot be planned");
+        }
+        String key = "package-" + packageId + (isAdminOrManager ? "-all-" : "-available-") + stamp.tag();
+        return plan(key, () -> itineraryPlanner.plan(
+                tripRepository.findSearchDocumentsByPackageId(packageId, isAdminOrManager)));
+    }
+
+    @Transactional(readOnly = true)
+    public ItineraryDTO planTrips(Collection<Long> tripIds, Authentication authentication) {
+        Set<Long> ids = new TreeSet<>(tripIds);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one trip id is required");
+        }
+        if (ids.size() > maxTrips) {
+            throw new IllegalArgumentException("At most " + maxTrips + " trips can be planned at once");
+        }
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        CollectionStamp stamp = tripRepository.findCollectionStampByIdIn(ids, isAdminOrManager);
+        if (stamp.count() != ids.size()) {
+            throw new IllegalArgumentException("Some of the trips do not exist or are not available");
+        }
+        String key = "trips-" + ids.stream().map(String::valueOf).collect(Collectors.joining(","))
+                + "-" + stamp.tag();
+        return plan(key, () -> itineraryPlanner.plan(tripRepository.findSearchDocumentsByIdIn(ids)));
+    }
+
+    private ItineraryDTO plan(String key, Supplier<ItineraryDTO> planner) {
+        ItineraryDTO cached = itineraries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<ItineraryDTO> mine = new CompletableFuture<>();
+        CompletableFuture<ItineraryDTO> running = planning.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // Planned outside the cache lock; a plan finished just before ours started is reused
+            ItineraryDTO itinerary = itineraries.get(key);
+            if (itinerary == null) {
+                itinerary = planner.get();
+                itineraries.put(key, itinerary);
+            }
+            mine.complete(itinerary);
+            return itinerary;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            planning.remove(key, mine);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.travel.management.service;
+
+import com.travel.management.model.OneTimeCode;
+import com.travel.management.repository.OneTimeCodeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Short-lived codes sent by email for account verification and password
+ * resets. Codes live in their own table, so sending or checking one never
+ * rewrites the user row.
+ */
+@Service
+@Transactional
+public class OneTimeCodeService {
+    private final OneTimeCodeRepository oneTimeCodeRepository;
+    private final int maxAttempts;
+    private final SecureRandom random = new SecureRandom();
+
+    public OneTimeCodeService(OneTimeCodeRepository oneTimeCodeRepository,
+                              @Value("${security.one-time-code.max-attempts:5}") int maxAttempts) {
+        this.oneTimeCodeRepository = oneTimeCodeRepository;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Replaces any earlier code for the same email and purpose with a new one.
+     */
+    public OneTimeCode issue(String email, OneTimeCode.Purpose purpose, Duration validity) {
+        oneTimeCodeRepository.deleteByEmailAndPurpose(email, purpose);
+
+        OneTimeCode oneTimeCode = new OneTimeCode();
+        oneTimeCode.setEmail(email);
+        oneTimeCode.setPurpose(purpose);
+        oneTimeCode.setCode(String.format("%06d", random.nextInt(1_000_000)));
+        oneTimeCode.setAttempts(0);
+        oneTimeCode.setExpiresAt(LocalDateTime.now().plus(validity));
+        return oneTimeCodeRepository.save(oneTimeCode);
+    }
+
+    /**
+     * Checks a code and uses it up when it matches. The common case is a single
+     * conditional delete; only a failed check reads the row to tell why.
+     */
+    public VerificationResult verify(String email, OneTimeCode.Purpose purpose, String code) {
+        LocalDateTime now = LocalDateTime.now();
+        if (code != null && oneTimeCodeRepository.consume(email, purpose, code, now, maxAttempts) == 1) {
+            return VerificationResult.VERIFIED;
+        }
+
+        OneTimeCode current = oneTimeCodeRepository.findByEmailAndPurpose(email, purpose).orElse(null);
+        if (current == null) {
+            return VerificationResult.INVALID;
+        }
+        if (current.isExpired()) {
+            return VerificationResult.EXPIRED;
+        }
+        if (current.getAttempts() >= maxAttempts) {
+            return VerificationResult.TOO_MANY_ATTEMPTS;
+        }
+        oneTimeCodeRepository.incrementAttempts(email, purpose, now);
+        return VerificationResult.INVALID;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean issuedWithin(String email, OneTimeCode.Purpose purpose, Duration period) {
+        return oneTimeCodeRepository.existsByEmailAndPurposeAndCreatedAtAfter(
+                email, purpose, LocalDateTime.now().minus(period));
+    }
+
+    /**
+     * Deletes up to {@code batchSize} expired codes and returns how many were removed.
+     */
+    public int deleteExpiredBatch(int batchSize) {
+        List<Long> expiredIds = oneTimeCodeRepository.findExpiredIds(
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (!expiredIds.isEmpty()) {
+            oneTimeCodeRepository.deleteAllByIdInBatch(expiredIds);
+        }
+        return expiredIds.size();
+    }
+
+    public enum VerificationResult {
+        VERIFIED,
+        INVALID,
+        EXPIRED,
+        TOO_MANY_ATTEMPTS
+    }
+}
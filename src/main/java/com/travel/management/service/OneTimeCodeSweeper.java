@@ -0,0 +1,36 @@
+package com.travel.management.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically removes expired verification and reset codes in small batches.
+ */
+@Component
+@Slf4j
+public class OneTimeCodeSweeper {
+    private final OneTimeCodeService oneTimeCodeService;
+    private final int batchSize;
+
+    public OneTimeCodeSweeper(OneTimeCodeService oneTimeCodeService,
+                              @Value("${security.one-time-code.sweep-batch-size:500}") int batchSize) {
+        this.oneTimeCodeService = oneTimeCodeService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${security.one-time-code.sweep-interval:900000}")
+    public void sweepExpiredCodes() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = oneTimeCodeService.deleteExpiredBatch(batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Removed {} expired one-time codes", total);
+        }
+    }
+}
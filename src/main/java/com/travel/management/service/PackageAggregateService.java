@@ -0,0 +1,144 @@
+package com.travel.management.service;
+
+import com.travel.management.Utils.TripDurations;
+import com.travel.management.dto.PackageAggregates;
+import com.travel.management.model.Package;
+import com.travel.management.model.Trip;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.repository.TripRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the stored trip aggregates of packages (total duration, summed trip
+ * prices, opening window, trip counts) in step with their trips, so reads
+ * never walk a package's trips to derive them. Only the packages holding a
+ * changed trip are recomputed, with one grouped query.
+ */
+@Service
+@Slf4j
+public class PackageAggregateService {
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final PackageRepository packageRepository;
+    private final TripRepository tripRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PackageAggregateService(PackageRepository packageRepository,
+                                   TripRepository tripRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.packageRepository = packageRepository;
+        this.tripRepository = tripRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * For a package whose trips are being set; the trips are in hand, so no
+     * query is needed.
+     */
+    public void apply(Package pack, Collection<Trip> trips) {
+        apply(pack, PackageAggregates.of(pack.getId(), trips));
+    }
+
+    /**
+     * Recomputes the packages holding the trip, after the trip was changed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tripChanged(Long tripId) {
+        recompute(packageRepository.findPackagesByTripId(tripId));
+    }
+
+    /**
+     * Takes the trip out of every package holding it and recomputes those
+     * packages, so the trip can be deleted. Their trip sets changed, so they
+     * are announced as changed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeTrip(Trip trip) {
+        List<Package> packages = packageRepository.findPackagesByTripId(trip.getId());
+        packages.forEach(pack -> pack.getTrips().remove(trip));
+        // the aggregate query flushes the removals first
+        recompute(packages);
+        packages.forEach(pack -> eventPublisher.publishEvent(new PackageChangedEvent(pack.getId(), false)));
+    }
+
+    private void recompute(List<Package> packages) {
+        if (packages.isEmpty()) {
+            return;
+        }
+        Map<Long, PackageAggregates> aggregates = packageRepository
+                .computeAggregates(packages.stream().map(Package::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(PackageAggregates::packageId, Function.identity()));
+        packages.forEach(pack -> apply(pack, aggregates.get(pack.getId())));
+    }
+
+    private void apply(Package pack, PackageAggregates aggregates) {
+        int days = aggregates.totalDurationDays() != null ? aggregates.totalDurationDays().intValue() : 0;
+        pack.setTotalDurationDays(days);
+        pack.setTotalDuration(TripDurations.format(days));
+        pack.setTripPriceTotal(aggregates.tripPriceTotal() != null ? aggregates.tripPriceTotal() : 0.0);
+        pack.setEarliestStart(aggregates.earliestStart());
+        pack.setLatestEnd(aggregates.latestEnd());
+        pack.setTripCount(aggregates.tripCount().intValue());
+        pack.setAvailableTripCount(aggregates.availableTripCount() != null
+                ? aggregates.availableTripCount().intValue()
+                : 0);
+    }
+
+    /**
+     * Fills in what rows written before the aggregates existed are missing:
+     * parsed trip durations first, then the package aggregates built on them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int trips = 0;
+        long after = 0;
+        List<Long> batch;
+        do {
+            long from = after;
+            batch = transactionTemplate.execute(status -> {
+                List<Trip> unparsed = tripRepository.findWithUnparsedDuration(
+                        from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                unparsed.forEach(trip -> trip.setDuration(trip.getDuration()));
+                return unparsed.stream().map(Trip::getId).toList();
+            });
+            trips += batch.size();
+            after = batch.isEmpty() ? after : batch.get(batch.size() - 1);
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+
+        int packages = 0;
+        after = 0;
+        do {
+            long from = after;
+            batch = transactionTemplate.execute(status -> {
+                List<Long> ids = packageRepository.findIdsWithoutAggregates(
+                        from, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                recompute(packageRepository.findAllById(ids));
+                return ids;
+            });
+            packages += batch.size();
+            after = batch.isEmpty() ? after : batch.get(batch.size() - 1);
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+
+        if (trips > 0 || packages > 0) {
+            log.info("Backfilled durations of {} trips and aggregates of {} packages", trips, packages);
+        }
+    }
+}
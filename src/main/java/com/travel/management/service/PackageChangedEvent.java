@@ -0,0 +1,8 @@
+package com.travel.management.service;
+
+/**
+ * Published by {@link PackageService} whenever a package is created, updated
+ * or deleted.
+ */
+public record PackageChangedEvent(Long packageId, boolean deleted) {
+}
@@ -1,5 +1,6 @@
 package com.travel.management.service;
 
+import com.travel.management.Utils.ScrollCursor;
 import com.travel.management.dto.*;
 import com.travel.management.exception.DuplicateResourceException;
 import com.travel.management.exception.PackageNotFoundException;
@@ -9,43 +10,72 @@ import com.travel.management.model.Package;
 import com.travel.management.repository.PackageRepository;
 import com.travel.management.repository.TripRepository;
 import com.travel.management.repository.UserRepository;
+import com.travel.management.search.PackageSimilarityIndex;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
 import jakarta.xml.bind.ValidationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.travel.management.model.Role;
 import com.travel.management.model.Trip;
-import com.travel.management.model.User;
 import org.springframework.data.domain.Page;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
 import java.nio.file.AccessDeniedException;
+import java.time.LocalDateTime;
 import java.util.Set;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class PackageService {
+    // Columns that are never null, the only ones a cursor can seek on
+    private static final Set<String> CURSOR_SORT_PROPERTIES =
+            Set.of("createdAt", "name", "version");
+
+    private static final int RELATED_PACKAGES = 5;
+
     private final PackageRepository packageRepository;
     private final TripRepository tripRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogChangeLog catalogChangeLog;
+    private final PackageAggregateService packageAggregateService;
+    private final PackageSimilarityIndex packageSimilarityIndex;
 
     public PackageService(PackageRepository packageRepository,
                           TripRepository tripRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          CurrentUserResolver currentUserResolver,
+                          ApplicationEventPublisher eventPublisher,
+                          CatalogChangeLog catalogChangeLog,
+                          PackageAggregateService packageAggregateService,
+                          PackageSimilarityIndex packageSimilarityIndex) {
         this.packageRepository = packageRepository;
         this.tripRepository = tripRepository;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.eventPublisher = eventPublisher;
+        this.catalogChangeLog = catalogChangeLog;
+        this.packageAggregateService = packageAggregateService;
+        this.packageSimilarityIndex = packageSimilarityIndex;
     }
     public Page<PackageDTO> getAllPackages(Pageable pageable, Authentication authentication) {
-        User currentUser = getUserFromAuthentication(authentication);
-        boolean isAdminOrManager = isAdminOrManager(currentUser);
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
 
         Specification<Package> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -55,14 +85,95 @@ public class PackageService {
             return predicates.isEmpty() ? null : cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        return packageRepository.findAll(spec, pageable)
+        return withTripsAndCreators(packageRepository.findAll(spec, pageable))
                 .map(pack -> convertToDTO(pack, isAdminOrManager));
     }
+
+    /**
+     * Validators for {@link #getAllPackages(Pageable, Authentication)}. Packages
+     * embed their trips, so trip changes count too.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getPackagesVersion(Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        CollectionStamp packages = packageRepository.findCollectionStamp(isAdminOrManager);
+        CollectionStamp trips = tripRepository.findCollectionStamp(true);
+        LocalDateTime lastModified = packages.lastModified();
+        if (lastModified == null || (trips.lastModified() != null && trips.lastModified().isAfter(lastModified))) {
+            lastModified = trips.lastModified();
+        }
+        return ResourceVersion.of("packages-" + view(isAdminOrManager) + "-" + packages.tag() + "-" + trips.tag(),
+                lastModified);
+    }
+
+    /**
+     * Validators for {@link #getPackageById}, read without loading the package.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getPackageVersion(Long packageId, Authentication authentication) {
+        VersionStamp stamp = packageRepository.findVersionStampById(packageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
+
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+
+        if (!isAdminOrManager && !stamp.visible()) {
+            try {
+                throw new AccessDeniedException("This package is not available");
+            } catch (AccessDeniedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return ResourceVersion.of("package-" + view(isAdminOrManager) + "-" + stamp.version(), stamp.updatedAt());
+    }
+
+    private static String view(boolean isAdminOrManager) {
+        return isAdminOrManager ? "detailed" : "basic";
+    }
+
+    /**
+     * Public packages as anyone may see them. Needs no caller, so the result can
+     * be shared between users.
+     */
+    @Transactional(readOnly = true)
+    public Page<PackageDTO> getPublicPackages(Pageable pageable) {
+        Specification<Package> spec = (root, query, cb) ->
+                cb.equal(root.get("status"), Package.PackageStatus.PUBLIC);
+        return withTripsAndCreators(packageRepository.findAll(spec, pageable))
+                .map(pack -> convertToDTO(pack, false));
+    }
+
+    @Transactional(readOnly = true)
+    public PackageDTO getPublicPackage(Long packageId) {
+        Package pack = packageRepository.findById(packageId)
+                .filter(candidate -> candidate.getStatus() == Package.PackageStatus.PUBLIC)
+                .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
+        return convertToDTO(pack, false);
+    }
+
+    /**
+     * Cursor-paginated variant of {@link #getAllPackages}, newest packages first
+     * unless a sort is given. See {@link ScrollCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<PackageDTO> getAllPackages(String cursor, Pageable pageable, Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        Sort sort = ScrollCursor.sortFor(
+                pageable, Sort.by(Sort.Direction.DESC, "createdAt"), CURSOR_SORT_PROPERTIES);
+
+        Specification<Package> spec = (root, query, cb) -> isAdminOrManager
+                ? cb.conjunction()
+                : cb.equal(root.get("status"), Package.PackageStatus.PUBLIC);
+
+        Window<Package> window = packageRepository.findBy(spec, q -> q.sortBy(sort)
+                .limit(pageable.getPageSize())
+                .scroll(ScrollCursor.decode(cursor, sort)));
+        fetchTripsAndCreators(window.getContent());
+        return ScrollCursor.toSlice(window, pack -> convertToDTO(pack, isAdminOrManager));
+    }
     public Page<PackageDTO> searchPackages(String name, String category,
                                            Authentication authentication,
                                            Pageable pageable) {
-        User currentUser = getUserFromAuthentication(authentication);
-        boolean isAdminOrManager = isAdminOrManager(currentUser);
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
 
         Specification<Package> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -91,12 +202,12 @@ public class PackageService {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        return packageRepository.findAll(spec, pageable)
+        return withTripsAndCreators(packageRepository.findAll(spec, pageable))
                 .map(pack -> convertToDTO(pack, isAdminOrManager));
     }
 
     public PackageDTO createPackage(PackageCreateRequest request, Authentication authentication) {
-        User currentUser = getUserFromAuthentication(authentication);
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
         validateUserPermission(currentUser);
         checkDuplicatePackageName(request.getName());
         validateTrips(request.getTripIds());
@@ -109,11 +220,14 @@ public class PackageService {
         newPackage.setPrice(request.getPrice());
         newPackage.setCategory(request.getCategory());
         newPackage.setStatus(request.getStatus());
-        newPackage.setCreatedBy(currentUser);
+        newPackage.setCreatedBy(userRepository.getReferenceById(currentUser.getId()));
         newPackage.setTrips(trips);
-        newPackage.setTotalDuration(calculateTotalDuration(trips));
+        validateTripDurations(trips);
+        packageAggregateService.apply(newPackage, trips);
 
         Package savedPackage = packageRepository.save(newPackage);
+        catalogChangeLog.packageChanged(savedPackage.getId(), false);
+        eventPublisher.publishEvent(new PackageChangedEvent(savedPackage.getId(), false));
         return convertToDetailedDTO(savedPackage);
     }
 
@@ -122,9 +236,13 @@ public class PackageService {
         Package existingPackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
 
-        User currentUser = getUserFromAuthentication(authentication);
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
         validateUpdatePermission(currentUser, existingPackage);
 
+        if (request.getVersion() != null && request.getVersion() != existingPackage.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Package.class, packageId);
+        }
+
         if (request.getName() != null && !request.getName().equals(existingPackage.getName())) {
             checkDuplicatePackageName(request.getName());
         }
@@ -138,12 +256,16 @@ public class PackageService {
             validateTrips(request.getTripIds());
             Set<Trip> newTrips = new HashSet<>(tripRepository.findAllById(request.getTripIds()));
             existingPackage.setTrips(newTrips);
-            existingPackage.setTotalDuration(calculateTotalDuration(newTrips));
+            validateTripDurations(newTrips);
+            packageAggregateService.apply(existingPackage, newTrips);
         }
 
         updatePackageFields(existingPackage, request);
 
-        Package updatedPackage = packageRepository.save(existingPackage);
+        // flushed so the returned DTO carries the new version and update time
+        Package updatedPackage = packageRepository.saveAndFlush(existingPackage);
+        catalogChangeLog.packageChanged(updatedPackage.getId(), false);
+        eventPublisher.publishEvent(new PackageChangedEvent(updatedPackage.getId(), false));
         return convertToDetailedDTO(updatedPackage);
     }
 
@@ -151,18 +273,33 @@ public class PackageService {
         Package packageToDelete = packageRepository.findById(packageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
 
-        User currentUser = getUserFromAuthentication(authentication);
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
         validateDeletePermission(currentUser, packageToDelete);
 
         packageRepository.delete(packageToDelete);
+        catalogChangeLog.packageChanged(packageId, true);
+        eventPublisher.publishEvent(new PackageChangedEvent(packageId, true));
+    }
+
+    /**
+     * Packages by id as the caller may see them, for the change feed. Ids of
+     * packages that are gone or hidden from the caller are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PackageDTO> getVisiblePackagesById(List<Long> packageIds, Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        Map<Long, PackageDTO> packages = new HashMap<>();
+        fetchTripsAndCreators(packageRepository.findAllById(packageIds)).stream()
+                .filter(pack -> isAdminOrManager || pack.getStatus() == Package.PackageStatus.PUBLIC)
+                .forEach(pack -> packages.put(pack.getId(), convertToDTO(pack, isAdminOrManager)));
+        return packages;
     }
 
     public PackageDTO getPackageById(Long packageId, Authentication authentication) {
         Package newpackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
 
-        User currentUser = getUserFromAuthentication(authentication);
-        boolean isAdminOrManager = isAdminOrManager(currentUser);
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
 
         if (!isAdminOrManager && newpackage.getStatus() != Package.PackageStatus.PUBLIC) {
             try {
@@ -200,36 +337,17 @@ public class PackageService {
         }
     }
 
-    private String calculateTotalDuration(Set<Trip> trips) {
-        // Extract numbers from duration strings and sum them
-        int totalDays = trips.stream()
-                .map(Trip::getDuration)
-                .map(this::extractDaysFromDuration)
-                .mapToInt(Integer::intValue)
-                .sum();
-
-        return formatDuration(totalDays);
-    }
-
-    private Integer extractDaysFromDuration(String duration) {
-        try {
-            // Remove non-digits and parse the number
-            String numberOnly = duration.replaceAll("[^0-9]", "");
-            return Integer.parseInt(numberOnly);
-        } catch (NumberFormatException | NullPointerException e) {
-            try {
-                throw new ValidationException("Invalid duration format in trip: " + duration);
-            } catch (ValidationException ex) {
-                throw new RuntimeException(ex);
-            }
-        }
-    }
-
-    private String formatDuration(int days) {
-        if (days == 1) {
-            return "1 day";
-        }
-        return days + " days";
+    private void validateTripDurations(Set<Trip> trips) {
+        trips.stream()
+                .filter(trip -> trip.getDurationDays() == null)
+                .findFirst()
+                .ifPresent(trip -> {
+                    try {
+                        throw new ValidationException("Invalid duration format in trip: " + trip.getDuration());
+                    } catch (ValidationException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
     }
 
     private void validateStatusChange(Package existingPackage, Package.PackageStatus newStatus) {
@@ -243,8 +361,8 @@ public class PackageService {
         }
     }
 
-    private void validateUserPermission(User user) {
-        if (!isAdminOrManager(user)) {
+    private void validateUserPermission(CurrentUser user) {
+        if (!user.isAdminOrManager()) {
             try {
                 throw new AccessDeniedException("Only ADMIN and MANAGER can manage packages");
             } catch (AccessDeniedException e) {
@@ -253,9 +371,8 @@ public class PackageService {
         }
     }
 
-    private void validateUpdatePermission(User user, Package newpackage) {
-        boolean isAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
+    private void validateUpdatePermission(CurrentUser user, Package newpackage) {
+        boolean isAdmin = user.isAdmin();
         boolean isCreator = newpackage.getCreatedBy().getId().equals(user.getId());
 
         if (!isAdmin && !isCreator) {
@@ -267,9 +384,8 @@ public class PackageService {
         }
     }
 
-    private void validateDeletePermission(User user, Package newpackage) {
-        boolean isAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
+    private void validateDeletePermission(CurrentUser user, Package newpackage) {
+        boolean isAdmin = user.isAdmin();
         boolean isCreator = newpackage.getCreatedBy().getId().equals(user.getId());
 
         if (!isAdmin && !isCreator) {
@@ -281,17 +397,6 @@ public class PackageService {
         }
     }
 
-    private boolean isAdminOrManager(User user) {
-        return user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
-    }
-
-    private User getUserFromAuthentication(Authentication authentication) {
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
-
     private void updatePackageFields(Package existingPackage, PackageUpdateRequest request) {
         if (request.getName() != null) existingPackage.setName(request.getName());
         if (request.getDescription() != null) existingPackage.setDescription(request.getDescription());
@@ -300,6 +405,24 @@ public class PackageService {
         if (request.getStatus() != null) existingPackage.setStatus(request.getStatus());
     }
 
+    private Page<Package> withTripsAndCreators(Page<Package> page) {
+        fetchTripsAndCreators(page.getContent());
+        return page;
+    }
+
+    /**
+     * Loads what the DTOs of the packages read beyond their own columns - the
+     * trips and the creator - for all of them in one query, so converting a
+     * page costs no query per package. The packages must be managed by the
+     * current persistence context, which the fetched rows then initialize.
+     */
+    private List<Package> fetchTripsAndCreators(List<Package> packages) {
+        if (!packages.isEmpty()) {
+            packageRepository.fetchTripsAndCreators(packages.stream().map(Package::getId).toList());
+        }
+        return packages;
+    }
+
     private PackageDTO convertToDTO(Package newpackage, boolean isAdminOrManager) {
         return isAdminOrManager ? convertToDetailedDTO(newpackage) : convertToBasicDTO(newpackage);
     }
@@ -311,6 +434,12 @@ public class PackageService {
             .price(newpackage.getPrice())
             .category(newpackage.getCategory())
             .totalDuration(newpackage.getTotalDuration())
+            .totalDurationDays(newpackage.getTotalDurationDays())
+            .tripPriceTotal(newpackage.getTripPriceTotal())
+            .earliestStart(newpackage.getEarliestStart())
+            .latestEnd(newpackage.getLatestEnd())
+            .tripCount(newpackage.getTripCount())
+            .availableTripCount(newpackage.getAvailableTripCount())
             .status(newpackage.getStatus())
             .trips(convertTripsToBasicDTO(newpackage.getTrips()))
             .build();
@@ -324,9 +453,17 @@ public class PackageService {
             .price(newpackage.getPrice())
             .category(newpackage.getCategory())
             .totalDuration(newpackage.getTotalDuration())
+            .totalDurationDays(newpackage.getTotalDurationDays())
+            .tripPriceTotal(newpackage.getTripPriceTotal())
+            .earliestStart(newpackage.getEarliestStart())
+            .latestEnd(newpackage.getLatestEnd())
+            .tripCount(newpackage.getTripCount())
+            .availableTripCount(newpackage.getAvailableTripCount())
             .status(newpackage.getStatus())
             .trips(convertTripsToBasicDTO(newpackage.getTrips()))
             .createdAt(newpackage.getCreatedAt())
+            .updatedAt(newpackage.getUpdatedAt())
+            .version(newpackage.getVersion())
             .createdBy(UserSummaryDTO.builder()
                 .id(newpackage.getCreatedBy().getId())
                     .firstName(newpackage.getCreatedBy().getFirstName())
@@ -356,30 +493,44 @@ public class PackageService {
                 .collect(Collectors.toSet());
     }
     public boolean isPackageAvailableForBooking(Long packageId) {
-        Package newpackage = packageRepository.findById(packageId)
+        // Public and all trips available, from the counts PackageAggregateService keeps current
+        return packageRepository.findBookableById(packageId)
                 .orElseThrow(() -> new PackageNotFoundException(packageId));
-
-        // Check if package is public and all trips are available
-        return newpackage.getStatus() == Package.PackageStatus.PUBLIC &&
-                newpackage.getTrips().stream().allMatch(Trip::isAvailable);
     }
     public void validatePackageForBooking(Long packageId) {
         if (!isPackageAvailableForBooking(packageId)) {
             throw new PackageValidationException("Package is not available for booking");
         }
     }
+    @Transactional(readOnly = true)
     public List<PackageDTO> getRelatedPackages(Long packageId, Authentication authentication) {
         Package newpackage = packageRepository.findById(packageId)
                 .orElseThrow(() -> new PackageNotFoundException(packageId));
 
-        User currentUser = getUserFromAuthentication(authentication);
-        boolean isAdminOrManager = isAdminOrManager(currentUser);
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+
+        if (!packageSimilarityIndex.isReady()) {
+            return findRelatedInDatabase(newpackage, isAdminOrManager);
+        }
+
+        List<Long> relatedIds = packageSimilarityIndex.related(packageId, RELATED_PACKAGES, isAdminOrManager);
+        Map<Long, Package> packages = fetchTripsAndCreators(packageRepository.findAllById(relatedIds)).stream()
+                .collect(Collectors.toMap(Package::getId, pack -> pack));
+        // the index may not have seen a package hidden a moment ago yet
+        return relatedIds.stream()
+                .map(packages::get)
+                .filter(pack -> pack != null
+                        && (isAdminOrManager || pack.getStatus() == Package.PackageStatus.PUBLIC))
+                .map(pack -> convertToDTO(pack, isAdminOrManager))
+                .collect(Collectors.toList());
+    }
 
-        // Find packages with similar category or overlapping trips
+    // Same category only, until the related package index has been built
+    private List<PackageDTO> findRelatedInDatabase(Package newpackage, boolean isAdminOrManager) {
         Specification<Package> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            predicates.add(cb.notEqual(root.get("id"), packageId));
+            predicates.add(cb.notEqual(root.get("id"), newpackage.getId()));
             predicates.add(cb.equal(root.get("category"), newpackage.getCategory()));
 
             if (!isAdminOrManager) {
@@ -389,9 +540,8 @@ public class PackageService {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        return packageRepository.findAll(spec)
+        return withTripsAndCreators(packageRepository.findAll(spec, PageRequest.of(0, RELATED_PACKAGES)))
                 .stream()
-                .limit(5)  // Limit to 5 related packages
                 .map(p -> convertToDTO(p, isAdminOrManager))
                 .collect(Collectors.toList());
     }
@@ -8,11 +8,10 @@ import com.travel.management.exception.PaymentValidationException;
 import com.travel.management.exception.ResourceNotFoundException;
 import com.travel.management.model.Booking;
 import com.travel.management.model.Payment;
-import com.travel.management.model.Role;
-import com.travel.management.model.User;
 import com.travel.management.repository.BookingRepository;
 import com.travel.management.repository.PaymentRepository;
-import com.travel.management.repository.UserRepository;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -31,15 +30,16 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
     private final EmailService emailService;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
 
     public PaymentService(PaymentRepository paymentRepository,
                           BookingRepository bookingRepository,
-                          EmailService emailService, UserRepository userRepository) {
+                          EmailService emailService,
+                          CurrentUserResolver currentUserResolver) {
         this.paymentRepository = paymentRepository;
         this.bookingRepository = bookingRepository;
         this.emailService = emailService;
-        this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
     }
 
     public PaymentDTO processPayment(PaymentRequest request, Authentication authentication) {
@@ -51,8 +51,7 @@ public class PaymentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
 
         // 2. Get the authenticated user
-        User user = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        CurrentUser user = currentUserResolver.resolve(authentication);
 
         // 3. Validate user owns the booking
         if (!booking.getUser().getId().equals(user.getId())) {
@@ -112,12 +111,9 @@ public class PaymentService {
                 String.format("%04d", new Random().nextInt(10000));
     }
     private void validatePaymentAccess(Payment payment, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        CurrentUser user = currentUserResolver.resolve(authentication);
 
-        boolean isAdminOrManager = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+        boolean isAdminOrManager = user.isAdminOrManager();
 
         if (!isAdminOrManager && !payment.getBooking().getUser().getId().equals(user.getId())) {
             try {
@@ -0,0 +1,83 @@
+package com.travel.management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.Utils.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized responses of the anonymous catalog endpoints, shared by every
+ * caller. Each body carries a strong ETag computed from its bytes. Any trip or
+ * package change drops the whole cache, because a trip shows up in package
+ * responses too.
+ */
+@Component
+public class PublicCatalogCache {
+    private final ObjectMapper objectMapper;
+    private final ExpiringLruCache<String, CachedResponse> responses;
+    // bumped on every change so a response built from data read before the change is never stored under a live key
+    private final AtomicLong generation = new AtomicLong();
+
+    public PublicCatalogCache(ObjectMapper objectMapper,
+                              @Value("${catalog.public.cache-size:500}") int maxEntries,
+                              @Value("${catalog.public.cache-ttl:300000}") long ttlMs,
+                              CacheStatsRegistry cacheStatsRegistry) {
+        this.objectMapper = objectMapper;
+        this.responses = new ExpiringLruCache<>(maxEntries, ttlMs);
+        cacheStatsRegistry.register("publicCatalog", responses);
+    }
+
+    public CachedResponse get(String key, Supplier<Object> loader) {
+        long current = generation.get();
+        String cacheKey = current + ":" + key;
+        CachedResponse cached = responses.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        CachedResponse response = serialize(loader.get());
+        if (generation.get() == current) {
+            responses.put(cacheKey, response);
+        }
+        return response;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPackageChanged(PackageChangedEvent event) {
+        invalidateAll();
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+            return new CachedResponse(bytes, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog response", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record CachedResponse(byte[] body, String etag) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.travel.management.service;
+
+import com.travel.management.Utils.JwtUtils;
+import com.travel.management.exception.InvalidTokenException;
+import com.travel.management.exception.TokenExpiredException;
+import com.travel.management.model.RefreshToken;
+import com.travel.management.model.User;
+import com.travel.management.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Transactional
+@Slf4j
+public class RefreshTokenService {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtils jwtUtils;
+    private final long validityDays;
+    private final int maxSessions;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               JwtUtils jwtUtils,
+                               @Value("${security.refresh-token.validity-days:7}") long validityDays,
+                               @Value("${security.refresh-token.max-sessions:10}") int maxSessions) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtils = jwtUtils;
+        this.validityDays = validityDays;
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Starts a new session for a login. Logging in again from the same device
+     * replaces that device's session; beyond the session limit the least
+     * recently refreshed session is dropped.
+     */
+    public IssuedRefreshToken createSession(User user, String deviceId) {
+        if (deviceId != null && !deviceId.isBlank()) {
+            refreshTokenRepository.deleteByUserIdAndDeviceId(user.getId(), deviceId);
+        }
+
+        List<String> activeSessions = refreshTokenRepository.findActiveSessionIdsOldestFirst(user.getId());
+        for (int i = 0; i <= activeSessions.size() - maxSessions; i++) {
+            refreshTokenRepository.deleteSession(user.getId(), activeSessions.get(i));
+        }
+
+        return issue(user, UUID.randomUUID().toString(), deviceId);
+    }
+
+    /**
+     * Exchanges a refresh token for the next one in its session. Presenting a
+     * token that was already rotated means it leaked, so the whole session is
+     * dropped.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public IssuedRefreshToken rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+        User user = current.getUser();
+
+        if (current.isRevoked()) {
+            if (current.getReplacedById() != null) {
+                log.warn("Rotated refresh token reused for user {}, revoking session {}",
+                        user.getId(), current.getSessionId());
+                refreshTokenRepository.deleteSession(user.getId(), current.getSessionId());
+            }
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        if (current.isExpired()) {
+            throw new TokenExpiredException("Refresh token has expired");
+        }
+
+        IssuedRefreshToken next = issue(user, current.getSessionId(), current.getDeviceId());
+        current.setRevokedAt(LocalDateTime.now());
+        current.setReplacedById(next.id());
+        return next;
+    }
+
+    public void revokeSession(Long userId, String sessionId) {
+        refreshTokenRepository.deleteSession(userId, sessionId);
+    }
+
+    public void revokeAllSessions(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Deletes up to {@code batchSize} expired tokens and returns how many were removed.
+     */
+    public int deleteExpiredBatch(int batchSize) {
+        List<Long> expiredIds = refreshTokenRepository.findExpiredIds(
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (!expiredIds.isEmpty()) {
+            refreshTokenRepository.deleteAllByIdInBatch(expiredIds);
+        }
+        return expiredIds.size();
+    }
+
+    private IssuedRefreshToken issue(User user, String sessionId, String deviceId) {
+        String rawToken = jwtUtils.generateRefreshToken();
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setUser(user);
+        refreshToken.setSessionId(sessionId);
+        refreshToken.setDeviceId(deviceId);
+        refreshToken.setExpiresAt(LocalDateTime.now().plusDays(validityDays));
+        RefreshToken saved = refreshTokenRepository.save(refreshToken);
+
+        return new IssuedRefreshToken(saved.getId(), rawToken, sessionId, user);
+    }
+
+    private String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record IssuedRefreshToken(Long id, String token, String sessionId, User user) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.travel.management.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically removes expired refresh tokens. Each batch runs in its own
+ * transaction so the sweep never holds locks on the whole table.
+ */
+@Component
+@Slf4j
+public class RefreshTokenSweeper {
+    private final RefreshTokenService refreshTokenService;
+    private final int batchSize;
+
+    public RefreshTokenSweeper(RefreshTokenService refreshTokenService,
+                               @Value("${security.refresh-token.sweep-batch-size:500}") int batchSize) {
+        this.refreshTokenService = refreshTokenService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-token.sweep-interval:3600000}")
+    public void sweepExpiredTokens() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenService.deleteExpiredBatch(batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Removed {} expired refresh tokens", total);
+        }
+    }
+}
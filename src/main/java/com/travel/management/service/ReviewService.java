@@ -1,5 +1,7 @@
 package com.travel.management.service;
 
+import com.travel.management.Utils.ScrollCursor;
+import com.travel.management.dto.CursorSlice;
 import com.travel.management.dto.ReviewCreateRequest;
 import com.travel.management.dto.ReviewDTO;
 import com.travel.management.dto.ReviewUpdateRequest;
@@ -7,38 +9,51 @@ import com.travel.management.dto.UserSummaryDTO;
 import com.travel.management.exception.ResourceNotFoundException;
 import com.travel.management.model.Package;
 import com.travel.management.model.Review;
-import com.travel.management.model.Role;
 import com.travel.management.model.Trip;
 import com.travel.management.model.User;
 import com.travel.management.repository.*;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
 import jakarta.xml.bind.ValidationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import java.nio.file.AccessDeniedException;
+import java.util.Set;
 
 
 @Service
 @Transactional
 public class ReviewService {
+    // Columns that are never null, the only ones a cursor can seek on
+    private static final Set<String> CURSOR_SORT_PROPERTIES =
+            Set.of("createdAt", "rating", "highlighted", "status");
+
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
     private final TripRepository tripRepository;
     private final PackageRepository packageRepository;
     private final BookingRepository bookingRepository;
+    private final CurrentUserResolver currentUserResolver;
 
     public ReviewService(ReviewRepository reviewRepository,
                          UserRepository userRepository,
                          TripRepository tripRepository,
                          PackageRepository packageRepository,
-                         BookingRepository bookingRepository) {
+                         BookingRepository bookingRepository,
+                         CurrentUserResolver currentUserResolver) {
         this.reviewRepository = reviewRepository;
         this.userRepository = userRepository;
         this.tripRepository = tripRepository;
         this.packageRepository = packageRepository;
         this.bookingRepository = bookingRepository;
+        this.currentUserResolver = currentUserResolver;
     }
 
     public Page<ReviewDTO> getReviewsForItem(Long itemId,
@@ -48,6 +63,25 @@ public class ReviewService {
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Cursor-paginated variant of {@link #getReviewsForItem(Long, ReviewCreateRequest.ReviewType, Pageable)}.
+     * See {@link ScrollCursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<ReviewDTO> getReviewsForItem(Long itemId,
+                                                    ReviewCreateRequest.ReviewType type,
+                                                    String cursor,
+                                                    Pageable pageable) {
+        Sort sort = ScrollCursor.sortFor(
+                pageable, Sort.by(Sort.Direction.DESC, "createdAt"), CURSOR_SORT_PROPERTIES);
+        ScrollPosition position = ScrollCursor.decode(cursor, sort);
+        Limit limit = Limit.of(pageable.getPageSize());
+        Window<Review> reviews = type == ReviewCreateRequest.ReviewType.TRIP
+                ? reviewRepository.findByTripId(itemId, position, sort, limit)
+                : reviewRepository.findByPkgId(itemId, position, sort, limit);
+        return ScrollCursor.toSlice(reviews, this::convertToDTO);
+    }
+
     public Page<ReviewDTO> getUserReviews(Long userId, Pageable pageable) {
         return reviewRepository.findByUserId(userId, pageable)
                 .map(this::convertToDTO);
@@ -55,7 +89,7 @@ public class ReviewService {
 
     public ReviewDTO createReview(ReviewCreateRequest request,
                                   Authentication authentication) {
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
 
         // Verify user has booked the item
         validateUserBooking(user.getId(), request.getItemId(), request.getType());
@@ -63,7 +97,7 @@ public class ReviewService {
         Review review = new Review();
         review.setContent(request.getContent());
         review.setRating(request.getRating());
-        review.setUser(user);
+        review.setUser(userRepository.getReferenceById(user.getId()));
 
         if (request.getType() == ReviewCreateRequest.ReviewType.TRIP) {
             Trip trip = tripRepository.findById(request.getItemId())
@@ -85,7 +119,7 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
 
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
         validateReviewOwnership(review, user);
 
         if (request.getContent() != null) review.setContent(request.getContent());
@@ -99,9 +133,8 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
 
-        User user = getUserFromAuthentication(authentication);
-        boolean isAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
+        CurrentUser user = currentUserResolver.resolve(authentication);
+        boolean isAdmin = user.isAdmin();
 
         if (!isAdmin && !review.getUser().getId().equals(user.getId())) {
             try {
@@ -118,7 +151,7 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
 
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
         validateManagerOrAdmin(user);
 
         review.setHighlighted(!review.isHighlighted());
@@ -130,7 +163,7 @@ public class ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
 
-        User user = getUserFromAuthentication(authentication);
+        CurrentUser user = currentUserResolver.resolve(authentication);
         validateManagerOrAdmin(user);
 
         review.setStatus(review.getStatus() == Review.ReviewStatus.VISIBLE ?
@@ -153,7 +186,7 @@ public class ReviewService {
         }
     }
 
-    private void validateReviewOwnership(Review review, User user) {
+    private void validateReviewOwnership(Review review, CurrentUser user) {
         if (!review.getUser().getId().equals(user.getId())) {
             try {
                 throw new AccessDeniedException("Not authorized to update this review");
@@ -163,10 +196,8 @@ public class ReviewService {
         }
     }
 
-    private void validateManagerOrAdmin(User user) {
-        boolean isManagerOrAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+    private void validateManagerOrAdmin(CurrentUser user) {
+        boolean isManagerOrAdmin = user.isAdminOrManager();
         if (!isManagerOrAdmin) {
             try {
                 throw new AccessDeniedException("Only managers and admins can perform this action");
@@ -202,8 +233,4 @@ public class ReviewService {
                 .email(user.getEmail())
                 .build();
     }
-    private User getUserFromAuthentication(Authentication authentication) {
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
 }
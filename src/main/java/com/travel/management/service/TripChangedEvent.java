@@ -0,0 +1,14 @@
+package com.travel.management.service;
+
+import com.travel.management.search.TripSearchDocument;
+
+/**
+ * Published by {@link TripService} whenever a trip is created, updated or
+ * deleted. {@code document} is null for a deletion.
+ */
+public record TripChangedEvent(Long tripId, TripSearchDocument document) {
+
+    public boolean isDeleted() {
+        return document == null;
+    }
+}
@@ -0,0 +1,296 @@
+package com.travel.management.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.management.Utils.CsvRecordReader;
+import com.travel.management.dto.TripImportReport;
+import com.travel.management.dto.TripImportRow;
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import com.travel.management.search.TripSearchDocument;
+import com.travel.management.security.CurrentUserResolver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk trip import from CSV (header row with {@link TripImportRow} field
+ * names) or NDJSON (one trip object per line). The input is read record by
+ * record and valid trips are saved in chunks, each in its own transaction
+ * with batched inserts, so memory stays flat however long the file is. A
+ * chunk is checked for duplicate titles against itself and the table, which
+ * by then holds the chunks saved before it. Chunks saved before a failure
+ * stay saved; every rejected record is counted and the first ones are
+ * reported with their line.
+ */
+@Service
+@Slf4j
+public class TripImportService {
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final TripRepository tripRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final CatalogChangeLog catalogChangeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public TripImportService(TripRepository tripRepository,
+                             UserRepository userRepository,
+                             CurrentUserResolver currentUserResolver,
+                             CatalogChangeLog catalogChangeLog,
+                             ApplicationEventPublisher eventPublisher,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${trips.import.chunk-size:500}") int chunkSize,
+                             @Value("${trips.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.tripRepository = tripRepository;
+        this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.catalogChangeLog = catalogChangeLog;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public TripImportReport importTrips(InputStream input, Format format, Authentication authentication)
+            throws IOException {
+        Import run = new Import(currentUserResolver.resolve(authentication).getId());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed CSV: there is no telling where the next record starts
+            run.reject(0, e.getMessage() + "; the rest of the input was skipped");
+        }
+        run.flush();
+
+        log.info("Trip import finished: {} imported, {} rejected", run.imported, run.failed);
+        return TripImportReport.builder()
+                .imported(run.imported)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader, MAX_RECORD_LENGTH);
+        List<String> header = csv.read();
+        if (header == null) {
+            return;
+        }
+        header = header.stream()
+                .map(name -> name.replace("\uFEFF", "").trim())
+                .toList();
+
+        List<String> record;
+        while ((record = csv.read()) != null) {
+            long line = csv.recordLine();
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            if (record.size() != header.size()) {
+                run.reject(line, "Expected " + header.size() + " columns but found " + record.size());
+                continue;
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // empty cells are missing values, not empty strings
+                if (!record.get(i).isEmpty()) {
+                    values.put(header.get(i), record.get(i));
+                }
+            }
+            TripImportRow row;
+            try {
+                row = objectMapper.convertValue(values, TripImportRow.class);
+            } catch (IllegalArgumentException e) {
+                run.reject(line, "Could not read record: " + firstLine(e.getMessage()));
+                continue;
+            }
+            run.accept(line, row);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (text.length() > MAX_RECORD_LENGTH) {
+                run.reject(line, "Record is too long");
+                continue;
+            }
+            try {
+                run.accept(line, objectMapper.readValue(text, TripImportRow.class));
+            } catch (JsonProcessingException e) {
+                run.reject(line, "Could not read record: " + firstLine(e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "invalid value";
+        }
+        int end = message.indexOf('\n');
+        return end < 0 ? message : message.substring(0, end);
+    }
+
+    private Trip toTrip(TripImportRow row, User creator) {
+        Trip trip = new Trip();
+        trip.setTitle(row.getTitle());
+        trip.setAddress(row.getDestination());
+        trip.setDescription(row.getDescription());
+        trip.setPrice(row.getPrice());
+        trip.setDuration(row.getDuration());
+        trip.setLocationLink(row.getLocationLink());
+        trip.setTips(row.getTips());
+        trip.setStartTime(row.getStartTime());
+        trip.setEndTime(row.getEndTime());
+        trip.setActivity(row.getActivity());
+        trip.setLatitude(row.getLatitude());
+        trip.setLongitude(row.getLongitude());
+        trip.setCreatedBy(creator);
+        trip.setAvailable(true);
+        return trip;
+    }
+
+    private record PendingRow(long line, TripImportRow row) {
+    }
+
+    private record ChunkResult(int saved, List<PendingRow> duplicates) {
+    }
+
+    // State of one import run
+    private class Import {
+        private final Long creatorId;
+        private final List<PendingRow> chunk = new ArrayList<>();
+        // lower-cased titles of the pending chunk; earlier chunks are found in the table
+        private final Set<String> chunkTitles = new HashSet<>();
+        private final List<TripImportReport.RowError> errors = new ArrayList<>();
+        private int imported;
+        private int failed;
+
+        private Import(Long creatorId) {
+            this.creatorId = creatorId;
+        }
+
+        void accept(long line, TripImportRow row) {
+            Set<ConstraintViolation<TripImportRow>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                reject(line, violations.stream()
+                        .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            if (!chunkTitles.add(row.getTitle().toLowerCase(Locale.ROOT))) {
+                reject(line, "Trip with name '" + row.getTitle() + "' appears earlier in this import");
+                return;
+            }
+            chunk.add(new PendingRow(line, row));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new TripImportReport.RowError(line, message));
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PendingRow> rows = List.copyOf(chunk);
+            chunk.clear();
+            chunkTitles.clear();
+            try {
+                ChunkResult result = transactionTemplate.execute(status -> save(rows));
+                imported += result.saved();
+                result.duplicates().forEach(pending -> reject(pending.line(),
+                        "Trip with name '" + pending.row().getTitle() + "' already exists"));
+            } catch (DataAccessException e) {
+                log.warn("Trip import chunk of {} rows failed", rows.size(), e);
+                rows.forEach(pending -> reject(pending.line(), "Not saved: the batch it was in failed"));
+            } catch (RuntimeException e) {
+                // the chunk was rolled back; the rest of the input is still imported and reported
+                log.error("Trip import chunk of {} rows failed unexpectedly", rows.size(), e);
+                rows.forEach(pending -> reject(pending.line(), "Not saved: the batch it was in failed"));
+            }
+        }
+
+        private ChunkResult save(List<PendingRow> rows) {
+            Set<String> taken = tripRepository.findExistingLowerCaseTitles(rows.stream()
+                    .map(pending -> pending.row().getTitle().toLowerCase(Locale.ROOT))
+                    .toList());
+            User creator = userRepository.getReferenceById(creatorId);
+
+            List<Trip> trips = new ArrayList<>(rows.size());
+            List<PendingRow> duplicates = new ArrayList<>();
+            for (PendingRow pending : rows) {
+                if (taken.contains(pending.row().getTitle().toLowerCase(Locale.ROOT))) {
+                    duplicates.add(pending);
+                } else {
+                    trips.add(toTrip(pending.row(), creator));
+                }
+            }
+            if (trips.isEmpty()) {
+                return new ChunkResult(0, duplicates);
+            }
+            List<Trip> savedTrips = tripRepository.saveAll(trips);
+            catalogChangeLog.tripsCreated(savedTrips.stream().map(Trip::getId).toList());
+            savedTrips.forEach(trip ->
+                    eventPublisher.publishEvent(new TripChangedEvent(trip.getId(), TripSearchDocument.from(trip))));
+            return new ChunkResult(savedTrips.size(), duplicates);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.travel.management.service;
 
+import com.travel.management.Utils.ScrollCursor;
 import com.travel.management.dto.*;
 import com.travel.management.exception.DuplicateResourceException;
 import com.travel.management.exception.ResourceNotFoundException;
-import com.travel.management.model.Role;
 import com.travel.management.model.Trip;
-import com.travel.management.model.User;
 import com.travel.management.repository.TripRepository;
 import com.travel.management.repository.UserRepository;
+import com.travel.management.search.TripGeoIndex;
+import com.travel.management.search.TripSearchDocument;
+import com.travel.management.search.TripSearchIndex;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,81 +30,248 @@ import org.springframework.util.StringUtils;
 import java.io.IOException;
 import java.nio.file.AccessDeniedException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 
 @Service
 @Transactional
 public class TripService {
+    // Columns that are never null, the only ones a cursor can seek on
+    private static final Set<String> CURSOR_SORT_PROPERTIES =
+            Set.of("createdAt", "title", "address", "available", "version");
+
     private final TripRepository tripRepository;
     private final ImageService imageService;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final TripSearchIndex tripSearchIndex;
+    private final TripGeoIndex tripGeoIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogChangeLog catalogChangeLog;
+    private final PackageAggregateService packageAggregateService;
 
     public TripService(TripRepository tripRepository,
                        ImageService imageService,
-                       UserRepository userRepository) {
+                       UserRepository userRepository,
+                       CurrentUserResolver currentUserResolver,
+                       TripSearchIndex tripSearchIndex,
+                       TripGeoIndex tripGeoIndex,
+                       ApplicationEventPublisher eventPublisher,
+                       CatalogChangeLog catalogChangeLog,
+                       PackageAggregateService packageAggregateService) {
         this.tripRepository = tripRepository;
         this.imageService = imageService;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.tripSearchIndex = tripSearchIndex;
+        this.tripGeoIndex = tripGeoIndex;
+        this.eventPublisher = eventPublisher;
+        this.catalogChangeLog = catalogChangeLog;
+        this.packageAggregateService = packageAggregateService;
     }
     public Page<TripDTO> getAllTrips(Pageable pageable, Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        return tripRepository.findListRows(isAdminOrManager, pageable)
+                .map(row -> row.toDTO(isAdminOrManager));
+    }
 
-        boolean isAdminOrManager = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+    /**
+     * Validators for {@link #getAllTrips(Pageable, Authentication)}, from one
+     * aggregate query over the visible trips. They cover the whole listing, so
+     * every page changes its ETag when any visible trip changes.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getTripsVersion(Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        CollectionStamp stamp = tripRepository.findCollectionStamp(isAdminOrManager);
+        return ResourceVersion.of("trips-" + view(isAdminOrManager) + "-" + stamp.tag(), stamp.lastModified());
+    }
 
-        Specification<Trip> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            if (!isAdminOrManager) {
-                predicates.add(cb.isTrue(root.get("available")));
+    /**
+     * Validators for {@link #getTripById}, read without loading the trip.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getTripVersion(Long tripId, Authentication authentication) {
+        VersionStamp stamp = tripRepository.findVersionStampById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+
+        if (!isAdminOrManager && !stamp.visible()) {
+            try {
+                throw new AccessDeniedException("This trip is not available");
+            } catch (AccessDeniedException e) {
+                throw new RuntimeException(e);
             }
-            return predicates.isEmpty() ? null : cb.and(predicates.toArray(new Predicate[0]));
-        };
+        }
+        return ResourceVersion.of("trip-" + view(isAdminOrManager) + "-" + stamp.version(), stamp.updatedAt());
+    }
 
-        return tripRepository.findAll(spec, pageable)
-                .map(trip -> convertToDTO(trip, isAdminOrManager));
+    /**
+     * Trips by id as the caller may see them, for the change feed. Ids of
+     * trips that are gone or hidden from the caller are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, TripDTO> getVisibleTripsById(List<Long> tripIds, Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        Map<Long, TripDTO> trips = new HashMap<>();
+        loadListRows(tripIds).stream()
+                .filter(row -> isAdminOrManager || row.available())
+                .forEach(row -> trips.put(row.id(), row.toDTO(isAdminOrManager)));
+        return trips;
     }
 
-    public Page<TripDTO> searchTrips(String title, String destination, String activity,
-                                     String category, Authentication authentication,
-                                     Pageable pageable) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    private static String view(boolean isAdminOrManager) {
+        return isAdminOrManager ? "detailed" : "basic";
+    }
 
-        boolean isAdminOrManager = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+    /**
+     * Available trips as anyone may see them. Needs no caller, so the result can
+     * be shared between users.
+     */
+    @Transactional(readOnly = true)
+    public Page<TripDTO> getPublicTrips(Pageable pageable) {
+        return tripRepository.findListRows(false, pageable)
+                .map(row -> row.toDTO(false));
+    }
 
+    @Transactional(readOnly = true)
+    public TripDTO getPublicTrip(Long tripId) {
+        Trip trip = tripRepository.findById(tripId)
+                .filter(Trip::isAvailable)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
+        return convertToBasicDTO(trip);
+    }
+
+    /**
+     * Cursor-paginated variant of {@link #getAllTrips}: seeks past the last row of
+     * the previous slice instead of counting and skipping rows, so deep slices
+     * cost the same as the first one. Newest trips first unless a sort is given.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<TripDTO> getAllTrips(String cursor, Pageable pageable, Authentication authentication) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+        Sort sort = ScrollCursor.sortFor(
+                pageable, Sort.by(Sort.Direction.DESC, "createdAt"), CURSOR_SORT_PROPERTIES);
+
+        Specification<Trip> spec = (root, query, cb) ->
+                isAdminOrManager ? cb.conjunction() : cb.isTrue(root.get("available"));
+
+        // The window only positions the slice, its rows are then read as list projections
+        Window<Trip> window = tripRepository.findBy(spec, q -> q.sortBy(sort)
+                .limit(pageable.getPageSize())
+                .scroll(ScrollCursor.decode(cursor, sort)));
+        List<Long> ids = window.stream().map(Trip::getId).toList();
+        return ScrollCursor.toSlice(window, loadListRows(ids).stream()
+                .map(row -> row.toDTO(isAdminOrManager))
+                .toList());
+    }
+
+    /**
+     * Full-text search over the in-memory trip index. {@code query} is matched
+     * against every text field, the other parameters only against their own
+     * field; a trip is returned when it matches any of them, best match first.
+     * Facet counts over the whole result are added when {@code withFacets} is set.
+     */
+    @Transactional(readOnly = true)
+    public TripSearchResponse searchTrips(String query, String title, String destination, String activity,
+                                          String category, boolean withFacets, Authentication authentication,
+                                          Pageable pageable) {
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+
+        List<TripSearchIndex.Clause> clauses = new ArrayList<>();
+        addClause(clauses, query, TripSearchIndex.ALL_FIELDS);
+        addClause(clauses, title, TripSearchIndex.FIELD_TITLE);
+        addClause(clauses, destination, TripSearchIndex.FIELD_ADDRESS);
+        // the activity column is the one mapped as "category" in the database
+        addClause(clauses, activity, TripSearchIndex.FIELD_ACTIVITY);
+        addClause(clauses, category, TripSearchIndex.FIELD_ACTIVITY);
+
+        if (!tripSearchIndex.isReady()) {
+            Page<TripDTO> trips = clauses.isEmpty()
+                    ? getAllTrips(pageable, authentication)
+                    : searchTripsInDatabase(clauses, isAdminOrManager, pageable);
+            return TripSearchResponse.builder().trips(trips).build();
+        }
+
+        TripSearchIndex.SearchResult result = tripSearchIndex.search(clauses, isAdminOrManager, withFacets);
+        if (clauses.isEmpty()) {
+            return TripSearchResponse.builder()
+                    .trips(getAllTrips(pageable, authentication))
+                    .facets(result.facets())
+                    .build();
+        }
+
+        List<Long> rankedIds = result.tripIds();
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, to);
+
+        List<TripDTO> content = loadListRows(pageIds).stream()
+                .map(row -> row.toDTO(isAdminOrManager))
+                .toList();
+        return TripSearchResponse.builder()
+                .trips(new PageImpl<>(content, pageable, rankedIds.size()))
+                .facets(result.facets())
+                .build();
+    }
+
+    // List rows for the given ids, in the order of the ids; ids of trips deleted meanwhile are skipped
+    private List<TripListRow> loadListRows(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TripListRow> rowsById = new HashMap<>();
+        tripRepository.findListRowsByIdIn(ids).forEach(row -> rowsById.put(row.id(), row));
+        return ids.stream()
+                .map(rowsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void addClause(List<TripSearchIndex.Clause> clauses, String text, int fields) {
+        if (StringUtils.hasText(text)) {
+            clauses.add(new TripSearchIndex.Clause(text, fields));
+        }
+    }
+
+    // Used only until the index has been built at startup
+    private Page<TripDTO> searchTripsInDatabase(List<TripSearchIndex.Clause> clauses, boolean isAdminOrManager,
+                                                Pageable pageable) {
         Specification<Trip> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             List<Predicate> searchPredicates = new ArrayList<>();
 
-            if (StringUtils.hasText(title)) {
-                searchPredicates.add(cb.like(cb.lower(root.get("title")),
-                        "%" + title.toLowerCase() + "%"));
-            }
-            if (StringUtils.hasText(destination)) {
-                searchPredicates.add(cb.like(cb.lower(root.get("destination")),
-                        "%" + destination.toLowerCase() + "%"));
-            }
-            if (StringUtils.hasText(activity)) {
-                searchPredicates.add(cb.like(cb.lower(root.get("activity")),
-                        "%" + activity.toLowerCase() + "%"));
-            }
-            if (StringUtils.hasText(category)) {
-                searchPredicates.add(cb.like(cb.lower(root.get("category")),
-                        "%" + category.toLowerCase() + "%"));
+            for (TripSearchIndex.Clause clause : clauses) {
+                String pattern = "%" + clause.text().toLowerCase() + "%";
+                List<Predicate> fieldPredicates = new ArrayList<>();
+                if ((clause.fields() & TripSearchIndex.FIELD_TITLE) != 0) {
+                    fieldPredicates.add(cb.like(cb.lower(root.get("title")), pattern));
+                }
+                if ((clause.fields() & TripSearchIndex.FIELD_ADDRESS) != 0) {
+                    fieldPredicates.add(cb.like(cb.lower(root.get("address")), pattern));
+                }
+                if ((clause.fields() & TripSearchIndex.FIELD_DESCRIPTION) != 0) {
+                    fieldPredicates.add(cb.like(cb.lower(root.get("description")), pattern));
+                }
+                if ((clause.fields() & TripSearchIndex.FIELD_ACTIVITY) != 0) {
+                    fieldPredicates.add(cb.like(cb.lower(root.get("activity")), pattern));
+                }
+                if ((clause.fields() & TripSearchIndex.FIELD_TIPS) != 0) {
+                    fieldPredicates.add(cb.like(cb.lower(root.get("tips")), pattern));
+                }
+                searchPredicates.add(cb.or(fieldPredicates.toArray(new Predicate[0])));
             }
 
             if (!isAdminOrManager) {
                 predicates.add(cb.isTrue(root.get("available")));
             }
-
-            if (!searchPredicates.isEmpty()) {
-                predicates.add(cb.or(searchPredicates.toArray(new Predicate[0])));
-            }
+            predicates.add(cb.or(searchPredicates.toArray(new Predicate[0])));
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
@@ -105,12 +281,70 @@ public class TripService {
     }
 
 
+    /**
+     * Trips around a point, nearest first. With a radius every trip within it is
+     * returned up to {@code limit}; without one the {@code limit} nearest trips
+     * are. Unavailable trips are only visible to admins and managers, as in
+     * {@link #getAllTrips}.
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyTripDTO> findNearbyTrips(double latitude, double longitude, Double radiusKm, int limit,
+                                               Authentication authentication) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("Radius must be positive");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
+
+        List<TripGeoIndex.Match> matches;
+        if (!tripGeoIndex.isReady()) {
+            matches = findNearbyInDatabase(latitude, longitude, radiusKm, limit, isAdminOrManager);
+        } else if (radiusKm != null) {
+            matches = tripGeoIndex.withinRadius(latitude, longitude, radiusKm, limit, isAdminOrManager);
+        } else {
+            matches = tripGeoIndex.nearest(latitude, longitude, limit, isAdminOrManager);
+        }
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, TripListRow> rowsById = new HashMap<>();
+        tripRepository.findListRowsByIdIn(matches.stream().map(TripGeoIndex.Match::tripId).toList())
+                .forEach(row -> rowsById.put(row.id(), row));
+        return matches.stream()
+                .filter(match -> rowsById.containsKey(match.tripId()))
+                .map(match -> NearbyTripDTO.builder()
+                        .trip(rowsById.get(match.tripId()).toDTO(isAdminOrManager))
+                        .distanceKm(match.distanceKm())
+                        .build())
+                .toList();
+    }
+
+    // Used only until the geo index has been built at startup
+    private List<TripGeoIndex.Match> findNearbyInDatabase(double latitude, double longitude, Double radiusKm,
+                                                          int limit, boolean isAdminOrManager) {
+        return tripRepository.findAllSearchDocuments().stream()
+                .filter(document -> isAdminOrManager || document.available())
+                .filter(document -> document.latitude() != null && document.longitude() != null)
+                .map(document -> new TripGeoIndex.Match(document.id(), TripGeoIndex.haversineKm(
+                        latitude, longitude, document.latitude(), document.longitude())))
+                .filter(match -> radiusKm == null || match.distanceKm() <= radiusKm)
+                .sorted(Comparator.comparingDouble(TripGeoIndex.Match::distanceKm)
+                        .thenComparing(TripGeoIndex.Match::tripId))
+                .limit(limit)
+                .toList();
+    }
+
     public TripDTO createTrip(TripCreateRequest request, MultipartFile image,
                               Authentication authentication) throws IOException {
         checkDuplicateTripName(request.getTitle());
 
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
 
         Trip trip = new Trip();
         trip.setTitle(request.getTitle());
@@ -123,7 +357,7 @@ public class TripService {
         trip.setStartTime(request.getStartTime());
         trip.setEndTime(request.getEndTime());
         trip.setActivity(request.getActivity());
-        trip.setCreatedBy(currentUser);
+        trip.setCreatedBy(userRepository.getReferenceById(currentUser.getId()));
         trip.setAvailable(true);
 
         if (image != null && !image.isEmpty()) {
@@ -132,6 +366,8 @@ public class TripService {
         }
 
         Trip savedTrip = tripRepository.save(trip);
+        catalogChangeLog.tripChanged(savedTrip.getId(), false);
+        eventPublisher.publishEvent(new TripChangedEvent(savedTrip.getId(), TripSearchDocument.from(savedTrip)));
         return convertToDetailedDTO(savedTrip);
     }
 
@@ -140,11 +376,9 @@ public class TripService {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
 
-        boolean isAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
+        boolean isAdmin = currentUser.isAdmin();
         boolean isCreator = trip.getCreatedBy().getId().equals(currentUser.getId());
 
         if (!isAdmin && !isCreator) {
@@ -155,6 +389,10 @@ public class TripService {
             }
         }
 
+        if (request.getVersion() != null && request.getVersion() != trip.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Trip.class, tripId);
+        }
+
         // Check for duplicate name only if name is being changed
         if (request.getTitle() != null && !request.getTitle().equals(trip.getTitle())) {
             checkDuplicateTripName(request.getTitle());
@@ -170,6 +408,7 @@ public class TripService {
         if (request.getStartTime() != null) trip.setStartTime(request.getStartTime());
         if (request.getEndTime() != null) trip.setEndTime(request.getEndTime());
         if (request.getActivity() != null) trip.setActivity(request.getActivity());
+        if (request.getAvailable() != null) trip.setAvailable(request.getAvailable());
 
         try {
             if (image != null && !image.isEmpty()) {
@@ -180,7 +419,11 @@ public class TripService {
             throw new RuntimeException("Failed to update image", e);
         }
 
-        Trip updatedTrip = tripRepository.save(trip);
+        // flushed so the returned DTO carries the new version and update time
+        Trip updatedTrip = tripRepository.saveAndFlush(trip);
+        packageAggregateService.tripChanged(updatedTrip.getId());
+        catalogChangeLog.tripChanged(updatedTrip.getId(), false);
+        eventPublisher.publishEvent(new TripChangedEvent(updatedTrip.getId(), TripSearchDocument.from(updatedTrip)));
         return convertToDetailedDTO(updatedTrip);
     }
 
@@ -188,11 +431,9 @@ public class TripService {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
 
-        boolean isAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
+        boolean isAdmin = currentUser.isAdmin();
         boolean isCreator = trip.getCreatedBy().getId().equals(currentUser.getId());
 
         if (!isAdmin && !isCreator) {
@@ -203,19 +444,17 @@ public class TripService {
             }
         }
 
+        catalogChangeLog.tripChanged(tripId, true);
+        packageAggregateService.removeTrip(trip);
         tripRepository.delete(trip);
+        eventPublisher.publishEvent(new TripChangedEvent(tripId, null));
     }
 
     public TripDTO getTripById(Long tripId, Authentication authentication) {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found"));
 
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        boolean isAdminOrManager = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN ||
-                        role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+        boolean isAdminOrManager = currentUserResolver.resolve(authentication).isAdminOrManager();
 
         if (!isAdminOrManager && !trip.isAvailable()) {
             try {
@@ -269,6 +508,8 @@ public class TripService {
                 .imageUrl(trip.getImage())
                 .available(trip.isAvailable())
                 .createdAt(trip.getCreatedAt())
+                .updatedAt(trip.getUpdatedAt())
+                .version(trip.getVersion())
                 .createdBy(UserSummaryDTO.builder()
                         .id(trip.getCreatedBy().getId())
                         .firstName(trip.getCreatedBy().getFirstName())
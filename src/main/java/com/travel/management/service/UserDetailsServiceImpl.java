@@ -1,38 +1,79 @@
 package com.travel.management.service;
 
+import com.travel.management.Utils.CacheStatsRegistry;
+import com.travel.management.Utils.ExpiringLruCache;
 import com.travel.management.model.User;
 import com.travel.management.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.travel.management.security.AuthenticatedUser;
+import com.travel.management.security.SecurityEpochRegistry;
+import com.travel.management.security.UserSecurityChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Service("userDetailsServiceImpl")
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    // Keyed by email; evicted through UserSecurityChangedEvent once the change is committed
+    private final ExpiringLruCache<String, CachedUser> userCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  SecurityEpochRegistry securityEpochRegistry,
+                                  CacheStatsRegistry cacheStatsRegistry,
+                                  @Value("${security.user-cache.max-size:10000}") int cacheSize,
+                                  @Value("${security.user-cache.ttl:300000}") long cacheTtlMs) {
         this.userRepository = userRepository;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.userCache = new ExpiringLruCache<>(cacheSize, cacheTtlMs);
+        cacheStatsRegistry.register("userDetails", userCache);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPassword())
-                .authorities(user.getRoles().stream()
-                        .map(role -> new SimpleGrantedAuthority(role.getRoleType().name()))
-                        .collect(Collectors.toList()))
-                .accountLocked(!user.isEnabled())
-                .build();
+        CachedUser cached = userCache.get(email);
+        if (cached == null) {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            cached = new CachedUser(
+                    user.getId(),
+                    user.getEmail(),
+                    user.getPassword(),
+                    user.getRoles().stream()
+                            .map(role -> role.getRoleType().name())
+                            .collect(Collectors.toList()),
+                    user.getSecurityEpoch(),
+                    user.isEnabled());
+            userCache.put(email, cached);
+        }
+
+        securityEpochRegistry.record(cached.id(), cached.securityEpoch());
+
+        // A fresh principal every time: authentication erases credentials on the instance it returns
+        return new AuthenticatedUser(
+                cached.id(),
+                cached.email(),
+                cached.password(),
+                cached.roles(),
+                cached.securityEpoch(),
+                cached.enabled());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        userCache.invalidate(event.email());
+    }
+
+    private record CachedUser(Long id, String email, String password, List<String> roles,
+                              long securityEpoch, boolean enabled) {
     }
 }
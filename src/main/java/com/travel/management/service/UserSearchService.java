@@ -5,6 +5,8 @@ import com.travel.management.dto.UserResponseDTO;
 import com.travel.management.model.User;
 import com.travel.management.model.Role;
 import com.travel.management.repository.UserRepository;
+import com.travel.management.security.CurrentUser;
+import com.travel.management.security.CurrentUserResolver;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -23,23 +25,22 @@ import java.util.stream.Collectors;
 public class UserSearchService {
 
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
 
-    public UserSearchService(UserRepository userRepository) {
+    public UserSearchService(UserRepository userRepository,
+                             CurrentUserResolver currentUserResolver) {
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
     }
 
     public Page<UserResponseDTO> searchUsers(String firstName, String lastName, String country,
                                              String roleType, Authentication authentication,
                                              Pageable pageable) {
-        // Get current user from database
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        CurrentUser currentUser = currentUserResolver.resolve(authentication);
 
         // Verify user is ADMIN or MANAGER
-        boolean isAdmin = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_ADMIN);
-        boolean isManager = currentUser.getRoles().stream()
-                .anyMatch(role -> role.getRoleType() == Role.RoleType.ROLE_MANAGER);
+        boolean isAdmin = currentUser.isAdmin();
+        boolean isManager = currentUser.isManager();
 
         if (!isAdmin && !isManager) {
             try {
@@ -6,7 +6,11 @@ import com.travel.management.model.Role;
 import com.travel.management.model.User;
 import com.travel.management.repository.RoleRepository;
 import com.travel.management.repository.UserRepository;
+import com.travel.management.security.AccessTokenRevocationList;
+import com.travel.management.security.SecurityEpochRegistry;
+import com.travel.management.security.UserSecurityChangedEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -26,13 +31,25 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityEpochRegistry securityEpochRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RefreshTokenService refreshTokenService;
+    private final AccessTokenRevocationList revocationList;
 
     public UserService(UserRepository userRepository,
                        RoleRepository roleRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       SecurityEpochRegistry securityEpochRegistry,
+                       ApplicationEventPublisher eventPublisher,
+                       RefreshTokenService refreshTokenService,
+                       AccessTokenRevocationList revocationList) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.securityEpochRegistry = securityEpochRegistry;
+        this.eventPublisher = eventPublisher;
+        this.refreshTokenService = refreshTokenService;
+        this.revocationList = revocationList;
     }
     public List<User> getAllUsers(){
         return userRepository.findAll();
@@ -155,13 +172,12 @@ public class UserService {
         }
         // Handle security-related updates
         if (user.getFailedLoginAttempts() != existingUser.getFailedLoginAttempts()) {
+            boolean lockoutChanged = !Objects.equals(user.getLockoutTime(), existingUser.getLockoutTime());
             existingUser.setFailedLoginAttempts(user.getFailedLoginAttempts());
             existingUser.setLockoutTime(user.getLockoutTime());
-        }
-        // Handle refresh token updates if provided
-        if (user.getRefreshToken() != null) {
-            existingUser.setRefreshToken(user.getRefreshToken());
-            existingUser.setRefreshTokenExpiry(user.getRefreshTokenExpiry());
+            if (lockoutChanged) {
+                eventPublisher.publishEvent(new UserSecurityChangedEvent(existingUser.getEmail()));
+            }
         }
         return userRepository.save(existingUser);
     }
@@ -184,7 +200,11 @@ public class UserService {
         Set<Role> roles = new HashSet<>();
         roles.add(newRole);
         user.setRoles(roles);
-        return userRepository.save(user);
+        user.bumpSecurityEpoch();
+        User savedUser = userRepository.save(user);
+        securityEpochRegistry.record(savedUser.getId(), savedUser.getSecurityEpoch());
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(savedUser.getEmail()));
+        return savedUser;
     }
     public User updatePassword(String email, String newPassword) {
         // Delegate to setPassword to enforce password reuse check
@@ -206,13 +226,16 @@ public class UserService {
         // Set the new password
         String encodedPassword = passwordEncoder.encode(newPassword);
         user.setPassword(encodedPassword);
+        user.bumpSecurityEpoch();
 
         // Save and return the updated user
-        return userRepository.save(user);
-    }
-    public User getUserByRefreshToken(String refreshToken) {
-        return userRepository.findByRefreshToken(refreshToken)
-                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+        User savedUser = userRepository.save(user);
+        securityEpochRegistry.record(savedUser.getId(), savedUser.getSecurityEpoch());
+        // A new password ends every session signed in with the old one
+        refreshTokenService.revokeAllSessions(savedUser.getId());
+        revocationList.revokeAllForUser(savedUser.getId());
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(savedUser.getEmail()));
+        return savedUser;
     }
     @Transactional
     public void deleteById(Long id) {
@@ -225,7 +248,10 @@ public class UserService {
         }
 
         try {
+            refreshTokenService.revokeAllSessions(id);
             userRepository.delete(user);
+            securityEpochRegistry.revoke(id);
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getEmail()));
         } catch (Exception e) {
             throw new RuntimeException("Error deleting user: " + e.getMessage());
         }
@@ -246,7 +272,10 @@ public class UserService {
         }
 
         try {
+            refreshTokenService.revokeAllSessions(id);
             userRepository.delete(user);
+            securityEpochRegistry.revoke(id);
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getEmail()));
         } catch (Exception e) {
             throw new RuntimeException("Error deleting user: " + e.getMessage());
         }
@@ -0,0 +1,321 @@
+package com.travel.management;
+
+import com.travel.management.Utils.JwtUtils;
+import com.travel.management.model.Package;
+import com.travel.management.model.Role;
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.BookingRepository;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.repository.RoleRepository;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import com.travel.management.security.SecurityEpochRegistry;
+import com.travel.management.service.PackageAggregateService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.jayway.jsonpath.JsonPath;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements an endpoint issues, so regressions such as
+ * reloading the caller or N+1 lazy loads show up as test failures.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RequestQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private SecurityEpochRegistry securityEpochRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TripRepository tripRepository;
+    @Autowired
+    private PackageRepository packageRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PackageAggregateService packageAggregateService;
+
+    private Statistics statistics;
+    private User tourist;
+    private User manager;
+    private Trip trip;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        Role touristRole = roleRepository.save(new Role(null, Role.RoleType.ROLE_TOURIST));
+        Role managerRole = roleRepository.save(new Role(null, Role.RoleType.ROLE_MANAGER));
+        tourist = saveUser("tourist@travelnest.com", touristRole);
+        manager = saveUser("manager@travelnest.com", managerRole);
+
+        for (int i = 0; i < 3; i++) {
+            Trip saved = saveTrip("Trip " + i, manager);
+            if (i == 0) {
+                trip = saved;
+            }
+        }
+
+        Package pkg = new Package();
+        pkg.setName("Package");
+        pkg.setPrice(100.0);
+        pkg.setCategory("Cultural");
+        pkg.setStatus(Package.PackageStatus.PUBLIC);
+        pkg.setCreatedBy(manager);
+        pkg.setTrips(new HashSet<>(Set.of(trip)));
+        packageRepository.save(pkg);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        packageRepository.deleteAll();
+        tripRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void listingTripsDoesNotLoadTheCaller() throws Exception {
+        // the ETag lookup and the rows
+        assertThat(statementsFor("/api/trips", tourist)).isEqualTo(2);
+    }
+
+    @Test
+    void listingAPageOfTripsDoesNotLoadEachCreator() throws Exception {
+        Role managerRole = manager.getRoles().iterator().next();
+        for (int i = 0; i < 15; i++) {
+            saveTrip("Creator trip " + i, saveUser("creator" + i + "@travelnest.com", managerRole));
+        }
+        // the ETag lookup, one projection query with the creators joined, and the page count
+        assertThat(statementsFor("/api/trips?size=15", manager)).isEqualTo(3);
+        assertThat(statementsFor("/api/trips?size=15", tourist)).isEqualTo(3);
+    }
+
+    @Test
+    void gettingATripDoesNotLoadTheCaller() throws Exception {
+        // the ETag lookup and the trip
+        assertThat(statementsFor("/api/trips/" + trip.getId(), tourist)).isEqualTo(2);
+    }
+
+    @Test
+    void listingPackagesDoesNotLoadTheCaller() throws Exception {
+        // package and trip ETag lookups, the packages, then their creators and trips in one query
+        assertThat(statementsFor("/api/packages", manager)).isEqualTo(4);
+    }
+
+    @Test
+    void listingAPageOfPackagesBatchesTheirTripsAndCreators() throws Exception {
+        Role managerRole = manager.getRoles().iterator().next();
+        for (int i = 0; i < 15; i++) {
+            User creator = saveUser("packager" + i + "@travelnest.com", managerRole);
+            Package pkg = new Package();
+            pkg.setName("Package " + i);
+            pkg.setPrice(100.0 + i);
+            pkg.setCategory("Cultural");
+            pkg.setStatus(Package.PackageStatus.PUBLIC);
+            pkg.setCreatedBy(creator);
+            pkg.setTrips(new HashSet<>(Set.of(saveTrip("Packaged trip " + i + "a", creator),
+                    saveTrip("Packaged trip " + i + "b", creator))));
+            packageRepository.save(pkg);
+        }
+        // package and trip ETag lookups, the page, one query for the trips and creators of the page, the count
+        assertThat(statementsFor("/api/packages?size=15", manager)).isEqualTo(5);
+        assertThat(statementsFor("/api/packages?size=15", tourist)).isEqualTo(5);
+        assertThat(statementsFor("/api/packages/search?category=cultural&size=15", manager)).isEqualTo(3);
+    }
+
+    @Test
+    void listingOwnBookingsDoesNotLoadTheCaller() throws Exception {
+        assertThat(statementsFor("/api/bookings/user", tourist)).isEqualTo(1);
+    }
+
+    @Test
+    void cursorListingOfTripsSkipsTheCountQuery() throws Exception {
+        // the offset listing needs an ETag lookup and a COUNT, the cursor one a second query for the rows
+        assertThat(statementsFor("/api/trips?size=2", tourist)).isEqualTo(3);
+        assertThat(statementsFor("/api/trips?cursor=&size=2", tourist)).isEqualTo(2);
+
+        String token = jwtUtils.generateTokenFromUser(tourist);
+        String firstSlice = mockMvc.perform(get("/api/trips?cursor=&size=2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstSlice, "$.nextCursor");
+
+        mockMvc.perform(get("/api/trips").param("cursor", cursor).param("size", "2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(trip.getId()))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void unchangedTripIsAnsweredWithNotModified() throws Exception {
+        String token = jwtUtils.generateTokenFromUser(tourist);
+        securityEpochRegistry.record(tourist.getId(), tourist.getSecurityEpoch());
+        String etag = mockMvc.perform(get("/api/trips/" + trip.getId()).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/trips/" + trip.getId())
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // only the version lookup, the trip itself is not loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        trip.setTitle("Renamed trip");
+        tripRepository.save(trip);
+        mockMvc.perform(get("/api/trips/" + trip.getId())
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed trip"));
+    }
+
+    @Test
+    void publicCatalogIsServedFromTheSharedCache() throws Exception {
+        String etag = mockMvc.perform(get("/api/public/trips"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andReturn().getResponse().getHeader("ETag");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/public/trips"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+        mockMvc.perform(get("/api/public/trips").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void packageAvailabilityIsOneLookupHoweverManyTripsItHas() throws Exception {
+        Set<Trip> trips = new HashSet<>();
+        for (int i = 0; i < 60; i++) {
+            trips.add(saveTrip("Package trip " + i, manager));
+        }
+        Package big = new Package();
+        big.setName("Grand tour");
+        big.setPrice(1000.0);
+        big.setCategory("Cultural");
+        big.setStatus(Package.PackageStatus.PUBLIC);
+        big.setCreatedBy(manager);
+        big.setTrips(trips);
+        packageAggregateService.apply(big, trips);
+        big = packageRepository.save(big);
+
+        String token = jwtUtils.generateTokenFromUser(tourist);
+        securityEpochRegistry.record(tourist.getId(), tourist.getSecurityEpoch());
+        statistics.clear();
+        mockMvc.perform(get("/api/packages/" + big.getId() + "/availability")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedItineraryOfAnUnchangedPackageIsOneLookup() throws Exception {
+        Package pkg = packageRepository.findAll().get(0);
+        assertThat(statementsFor("/api/packages/" + pkg.getId() + "/itinerary", tourist)).isEqualTo(2);
+        // only the version lookup, the plan comes from the cache
+        assertThat(statementsFor("/api/packages/" + pkg.getId() + "/itinerary", tourist)).isEqualTo(1);
+
+        trip.setLatitude(30.0);
+        trip.setLongitude(31.2);
+        tripRepository.save(trip);
+        assertThat(statementsFor("/api/packages/" + pkg.getId() + "/itinerary", tourist)).isEqualTo(2);
+    }
+
+    @Test
+    void exportStreamsTheCatalogFromOneQuery() throws Exception {
+        User admin = saveUser("admin@travelnest.com", roleRepository.save(new Role(null, Role.RoleType.ROLE_ADMIN)));
+        String token = jwtUtils.generateTokenFromUser(admin);
+        securityEpochRegistry.record(admin.getId(), admin.getSecurityEpoch());
+
+        statistics.clear();
+        MvcResult started = mockMvc.perform(get("/api/admin/export/trips?format=csv")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(csv.lines()).hasSize(4).first().asString().startsWith("id,title,destination,");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private long statementsFor(String url, User user) throws Exception {
+        String token = jwtUtils.generateTokenFromUser(user);
+        securityEpochRegistry.record(user.getId(), user.getSecurityEpoch());
+
+        statistics.clear();
+        mockMvc.perform(get(url).header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User saveUser(String email, Role role) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail(email);
+        user.setPassword("encoded");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of(role)));
+        return userRepository.save(user);
+    }
+
+    private Trip saveTrip(String title, User createdBy) {
+        Trip newTrip = new Trip();
+        newTrip.setTitle(title);
+        newTrip.setAddress("Cairo");
+        newTrip.setDescription("Description of " + title);
+        newTrip.setPrice(50.0);
+        newTrip.setDuration("1 day");
+        newTrip.setActivity("Museum");
+        newTrip.setAvailable(true);
+        newTrip.setCreatedBy(createdBy);
+        return tripRepository.save(newTrip);
+    }
+}
@@ -0,0 +1,66 @@
+package com.travel.management.config;
+
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SchemaUpgradesTests {
+
+    @Autowired
+    private SchemaUpgrades schemaUpgrades;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TripRepository tripRepository;
+
+    @AfterEach
+    void tearDown() {
+        tripRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void dropsTheNotNullCodeColumnsLeftOnUsers() {
+        // what ddl-auto=update leaves behind on a database created before the codes moved out
+        jdbcTemplate.execute("ALTER TABLE users ADD COLUMN verification BIGINT NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE users ADD COLUMN reset_password_attempts INT NOT NULL");
+        assertThat(schemaUpgrades.columnExists("users", "verification")).isTrue();
+
+        schemaUpgrades.apply();
+        schemaUpgrades.apply();
+
+        assertThat(schemaUpgrades.columnExists("users", "verification")).isFalse();
+        assertThat(schemaUpgrades.columnExists("users", "reset_password_attempts")).isFalse();
+        User user = new User();
+        user.setFirstName("Legacy");
+        user.setLastName("Schema");
+        user.setEmail("legacy@travelnest.com");
+        user.setPassword("encoded");
+        assertThat(userRepository.save(user).getId()).isNotNull();
+    }
+
+    @Test
+    void createsTheIdGeneratorTableWhenHibernateDidNot() {
+        jdbcTemplate.execute("DROP TABLE id_generators");
+
+        schemaUpgrades.apply();
+
+        assertThat(schemaUpgrades.tableExists("id_generators")).isTrue();
+        Trip trip = new Trip();
+        trip.setTitle("Generated");
+        trip.setAddress("Cairo");
+        trip.setDescription("Id from the recreated table");
+        assertThat(tripRepository.save(trip).getId()).isNotNull();
+    }
+}
@@ -0,0 +1,55 @@
+package com.travel.management.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PackageSimilarityIndexTests {
+
+    private PackageSimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PackageSimilarityIndex(null, 2);
+        index.upsert(profile(1L, "Cultural", 100.0, true, 10L, 11L, 12L));
+        index.upsert(profile(2L, "Cultural", 110.0, true, 10L, 11L));
+        index.upsert(profile(3L, "Adventure", 100.0, true, 10L, 11L, 12L));
+        index.upsert(profile(4L, "cultural ", 400.0, true));
+        index.upsert(profile(5L, "Cultural", 100.0, false, 10L, 11L, 12L));
+        index.upsert(profile(6L, "Beach", 100.0, true, 99L));
+    }
+
+    @Test
+    void ranksByTripOverlapCategoryAndPrice() {
+        assertEquals(List.of(5L, 2L), index.related(1L, 5, true));
+        // the private package is left out of what tourists see
+        assertEquals(List.of(2L, 3L), index.related(1L, 5, false));
+        assertEquals(List.of(2L), index.related(1L, 1, false));
+        // nothing shares a trip or the category
+        assertEquals(List.of(), index.related(6L, 5, true));
+    }
+
+    @Test
+    void updatesTheListsAChangedPackageIsOnOrCouldEnter() {
+        index.upsert(profile(5L, "Cultural", 100.0, true, 10L, 11L, 12L));
+        assertEquals(List.of(5L, 2L), index.related(1L, 5, false));
+
+        index.remove(5L);
+        assertEquals(List.of(2L, 3L), index.related(1L, 5, true));
+        assertEquals(List.of(), index.related(5L, 5, true));
+
+        index.upsert(profile(6L, "Cultural", 100.0, true, 10L, 11L, 12L));
+        assertEquals(List.of(6L, 2L), index.related(1L, 5, true));
+        assertEquals(List.of(1L, 2L), index.related(6L, 5, true));
+        assertEquals(List.of(1L, 6L), index.related(2L, 5, true));
+    }
+
+    private static PackageSimilarityIndex.Profile profile(Long id, String category, Double price, boolean visible,
+                                                          Long... tripIds) {
+        return new PackageSimilarityIndex.Profile(id, category, price, visible, Set.of(tripIds));
+    }
+}
@@ -0,0 +1,60 @@
+package com.travel.management.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TripGeoIndexTests {
+
+    private TripGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TripGeoIndex(null, 0.25);
+        // Giza, Cairo, Luxor, Aswan and an unavailable trip next to Giza
+        index.upsert(trip(1L, 29.9792, 31.1342, true));
+        index.upsert(trip(2L, 30.0444, 31.2357, true));
+        index.upsert(trip(3L, 25.6872, 32.6396, true));
+        index.upsert(trip(4L, 24.0889, 32.8998, true));
+        index.upsert(trip(5L, 29.9800, 31.1300, false));
+    }
+
+    @Test
+    void returnsTripsWithinRadiusNearestFirst() {
+        assertEquals(List.of(1L, 2L), ids(index.withinRadius(29.98, 31.13, 20, 10, false)));
+        assertEquals(List.of(5L, 1L, 2L), ids(index.withinRadius(29.98, 31.13, 20, 10, true)));
+        assertEquals(List.of(5L), ids(index.withinRadius(29.98, 31.13, 20, 1, true)));
+    }
+
+    @Test
+    void findsNearestTripsAcrossDistantCells() {
+        assertEquals(List.of(4L, 3L), ids(index.nearest(24.09, 32.90, 2, false)));
+        assertEquals(List.of(4L, 3L, 1L, 2L), ids(index.nearest(24.09, 32.90, 10, false)));
+    }
+
+    @Test
+    void wrapsAroundTheAntimeridian() {
+        index.upsert(trip(6L, -17.7134, 178.0650, true));
+        assertEquals(List.of(6L), ids(index.nearest(-17.70, -179.90, 1, false)));
+    }
+
+    @Test
+    void reflectsMovesAndDeletes() {
+        index.upsert(trip(1L, 24.09, 32.90, true));
+        index.remove(4L);
+        assertEquals(List.of(1L), ids(index.nearest(24.09, 32.90, 1, false)));
+        assertEquals(List.of(2L), ids(index.withinRadius(29.98, 31.13, 20, 10, false)));
+    }
+
+    private static TripSearchDocument trip(Long id, double latitude, double longitude, boolean available) {
+        return new TripSearchDocument(id, "Trip " + id, null, null, null, null, null, null, null,
+                available, latitude, longitude);
+    }
+
+    private static List<Long> ids(List<TripGeoIndex.Match> matches) {
+        return matches.stream().map(TripGeoIndex.Match::tripId).toList();
+    }
+}
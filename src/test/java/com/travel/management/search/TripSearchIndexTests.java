@@ -0,0 +1,75 @@
+package com.travel.management.search;
+
+import com.travel.management.dto.PriceBucketCountDTO;
+import com.travel.management.dto.TripFacetsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripSearchIndexTests {
+
+    private TripSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TripSearchIndex(null, new double[]{100, 250, 500});
+        index.upsert(new TripSearchDocument(1L, "Pyramids of Giza", "Giza Plateau",
+                "The last standing wonder of the ancient world", "History", "Go early",
+                60.0, null, null, true, null, null));
+        index.upsert(new TripSearchDocument(2L, "Nile Dinner Cruise", "Cairo Corniche",
+                "Dinner and a show on the Nile", "Cruise", "Book ahead",
+                300.0, null, null, true, null, null));
+        index.upsert(new TripSearchDocument(3L, "Egyptian Museum", "Tahrir Square, Cairo",
+                "Ancient artifacts including the Giza collection", "history", null,
+                120.0, null, null, false, null, null));
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        List<Long> ids = index.search(List.of(new TripSearchIndex.Clause("giza", TripSearchIndex.ALL_FIELDS)), true);
+        assertEquals(List.of(1L, 3L), ids);
+    }
+
+    @Test
+    void matchesPrefixesAndRequiresEveryWord() {
+        assertEquals(List.of(2L), index.search(
+                List.of(new TripSearchIndex.Clause("nil cru", TripSearchIndex.ALL_FIELDS)), true));
+        assertTrue(index.search(
+                List.of(new TripSearchIndex.Clause("nile giza", TripSearchIndex.ALL_FIELDS)), true).isEmpty());
+    }
+
+    @Test
+    void restrictsClausesToTheirFieldsAndHidesUnavailableTrips() {
+        List<TripSearchIndex.Clause> cairo = List.of(new TripSearchIndex.Clause("cairo", TripSearchIndex.FIELD_ADDRESS));
+        assertEquals(2, index.search(cairo, true).size());
+        assertEquals(List.of(2L), index.search(cairo, false));
+    }
+
+    @Test
+    void reflectsUpdatesAndDeletes() {
+        index.upsert(new TripSearchDocument(2L, "Felucca Ride", "Aswan", "Sail the Nile", "Cruise", null,
+                150.0, null, null, true, null, null));
+        assertTrue(index.search(List.of(new TripSearchIndex.Clause("dinner", TripSearchIndex.ALL_FIELDS)), true).isEmpty());
+
+        index.remove(1L);
+        assertEquals(List.of(3L), index.search(
+                List.of(new TripSearchIndex.Clause("giza", TripSearchIndex.ALL_FIELDS)), true));
+    }
+
+    @Test
+    void countsFacetsOverTheMatchedTrips() {
+        TripFacetsDTO facets = index.search(
+                List.of(new TripSearchIndex.Clause("giza", TripSearchIndex.ALL_FIELDS)), true, true).facets();
+
+        assertEquals(Map.of("History", 2L), facets.getActivities());
+        assertEquals(List.of(1L, 1L, 0L, 0L),
+                facets.getPriceBuckets().stream().map(PriceBucketCountDTO::getCount).toList());
+        assertEquals(1, facets.getAvailable());
+        assertEquals(1, facets.getUnavailable());
+    }
+}
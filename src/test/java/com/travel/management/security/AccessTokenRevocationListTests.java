@@ -0,0 +1,76 @@
+package com.travel.management.security;
+
+import com.travel.management.Utils.JwtUtils;
+import com.travel.management.repository.AccessTokenCutoffRepository;
+import com.travel.management.repository.RevokedAccessTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AccessTokenRevocationListTests {
+
+    private static final long TTL_MS = 3_600_000;
+
+    @Autowired
+    private AccessTokenRevocationList revocationList;
+    @Autowired
+    private RevokedAccessTokenRepository revokedTokenRepository;
+    @Autowired
+    private AccessTokenCutoffRepository cutoffRepository;
+
+    @AfterEach
+    void tearDown() {
+        revokedTokenRepository.deleteAll();
+        cutoffRepository.deleteAll();
+    }
+
+    @Test
+    void logoutOfAllSessionsSparesATokenIssuedLaterInTheSameSecond() throws InterruptedException {
+        Claims before = token(7L, System.currentTimeMillis());
+        Thread.sleep(2);
+        revocationList.revokeAllForUser(7L);
+        Thread.sleep(2);
+        Claims after = token(7L, System.currentTimeMillis());
+        // the same second on the second-precision iat claim
+        after.setIssuedAt(before.getIssuedAt());
+
+        assertThat(revocationList.isRevoked(before)).isTrue();
+        assertThat(revocationList.isRevoked(after)).isFalse();
+    }
+
+    @Test
+    void revocationsSurviveARestart() {
+        Claims single = token(8L, System.currentTimeMillis());
+        Claims ofUser = token(9L, System.currentTimeMillis() - 1);
+        revocationList.revoke(single);
+        revocationList.revokeAllForUser(9L);
+
+        AccessTokenRevocationList restarted =
+                new AccessTokenRevocationList(revokedTokenRepository, cutoffRepository, 1000, 0.01, TTL_MS);
+        assertThat(restarted.isRevoked(single)).isFalse();
+        restarted.sync();
+
+        assertThat(restarted.isRevoked(single)).isTrue();
+        assertThat(restarted.isRevoked(ofUser)).isTrue();
+        assertThat(restarted.isRevoked(token(8L, System.currentTimeMillis()))).isFalse();
+    }
+
+    private static Claims token(Long userId, long issuedAtMs) {
+        Claims claims = Jwts.claims();
+        claims.put(JwtUtils.CLAIM_USER_ID, userId);
+        claims.put(JwtUtils.CLAIM_ISSUED_AT_MS, issuedAtMs);
+        claims.setId(UUID.randomUUID().toString());
+        claims.setIssuedAt(new Date(issuedAtMs / 1000 * 1000));
+        claims.setExpiration(new Date(issuedAtMs + TTL_MS));
+        return claims;
+    }
+}
@@ -0,0 +1,81 @@
+package com.travel.management.security;
+
+import com.travel.management.model.Role;
+import com.travel.management.model.User;
+import com.travel.management.repository.RoleRepository;
+import com.travel.management.repository.UserRepository;
+import com.travel.management.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecurityEpochRegistryTests {
+
+    @Autowired
+    private SecurityEpochRegistry securityEpochRegistry;
+    @Autowired
+    @Qualifier("userDetailsServiceImpl")
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void staleTokenDuringARoleChangeDoesNotRestoreTheOldEpoch() {
+        Role manager = roleRepository.save(new Role(null, Role.RoleType.ROLE_MANAGER));
+        roleRepository.save(new Role(null, Role.RoleType.ROLE_TOURIST));
+        User user = new User();
+        user.setFirstName("Demoted");
+        user.setLastName("Manager");
+        user.setEmail("demoted@travelnest.com");
+        user.setPassword("encoded");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of(manager)));
+        user = userRepository.save(user);
+        Long userId = user.getId();
+        long oldEpoch = user.getSecurityEpoch();
+        // a request with the manager token fills the user cache
+        userDetailsService.loadUserByUsername(user.getEmail());
+        assertThat(securityEpochRegistry.isCurrent(userId, oldEpoch)).isTrue();
+
+        long newEpoch = transactionTemplate.execute(status -> {
+            User demoted = userService.updateUserRole(userId, Role.RoleType.ROLE_TOURIST.name());
+            // the manager token arrives before the change commits: its epoch is stale, so the filter
+            // falls back to the user cache, which still holds the manager
+            userDetailsService.loadUserByUsername(demoted.getEmail());
+            return demoted.getSecurityEpoch();
+        });
+
+        assertThat(securityEpochRegistry.isCurrent(userId, oldEpoch)).isFalse();
+        assertThat(securityEpochRegistry.isCurrent(userId, newEpoch)).isTrue();
+    }
+
+    @Test
+    void revokedUserStaysRevoked() {
+        securityEpochRegistry.revoke(4242L);
+        securityEpochRegistry.record(4242L, 3);
+
+        assertThat(securityEpochRegistry.isCurrent(4242L, 3)).isFalse();
+    }
+}
@@ -0,0 +1,147 @@
+package com.travel.management.service;
+
+import com.travel.management.dto.CatalogChangeDTO;
+import com.travel.management.dto.CatalogChangesDTO;
+import com.travel.management.exception.ChangeFeedExpiredException;
+import com.travel.management.model.CatalogChange;
+import com.travel.management.model.Role;
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.CatalogChangeRepository;
+import com.travel.management.repository.CatalogConsumerRepository;
+import com.travel.management.repository.RoleRepository;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class CatalogChangeFeedTests {
+
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+    @Autowired
+    private CatalogFeedService catalogFeedService;
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+    @Autowired
+    private CatalogConsumerRepository consumerRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TripRepository tripRepository;
+
+    private Authentication tourist;
+    private Trip trip;
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.save(new Role(null, Role.RoleType.ROLE_TOURIST));
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail("feed@travelnest.com");
+        user.setPassword("encoded");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of(role)));
+        user = userRepository.save(user);
+        tourist = new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                List.of(new SimpleGrantedAuthority(Role.RoleType.ROLE_TOURIST.name())));
+
+        trip = new Trip();
+        trip.setTitle("Nile cruise");
+        trip.setAddress("Luxor");
+        trip.setDescription("Three days on the Nile");
+        trip.setPrice(300.0);
+        trip.setDuration("3 days");
+        trip.setActivity("Cruise");
+        trip.setStartTime(LocalDateTime.now().plusDays(1));
+        trip.setEndTime(LocalDateTime.now().plusDays(4));
+        trip.setAvailable(true);
+        trip.setCreatedBy(user);
+        trip = tripRepository.save(trip);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeRepository.deleteAll();
+        consumerRepository.deleteAll();
+        tripRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void returnsTheLatestStateOfEachChangedItemInCommitOrder() {
+        String head = catalogFeedService.getChanges(null, null, 100, tourist).getNextCursor();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogChangeLog.tripChanged(trip.getId(), false);
+            catalogChangeLog.packageChanged(41L, true);
+            catalogChangeLog.tripChanged(trip.getId(), false);
+        });
+
+        CatalogChangesDTO changes = catalogFeedService.getChanges(head, null, 100, tourist);
+        assertThat(changes.getChanges())
+                .extracting(CatalogChangeDTO::getType, CatalogChangeDTO::getId, CatalogChangeDTO::getOperation)
+                .containsExactly(
+                        tuple(CatalogChange.ItemType.PACKAGE, 41L,
+                                CatalogChange.Operation.DELETE),
+                        tuple(CatalogChange.ItemType.TRIP, trip.getId(),
+                                CatalogChange.Operation.UPSERT));
+        assertThat(changes.getChanges().get(1).getData()).isNotNull();
+        assertThat(changes.isHasMore()).isFalse();
+
+        // a trip hidden from the caller turns into a delete
+        trip.setAvailable(false);
+        tripRepository.save(trip);
+        transactionTemplate.executeWithoutResult(status -> catalogChangeLog.tripChanged(trip.getId(), false));
+
+        CatalogChangesDTO next = catalogFeedService.getChanges(changes.getNextCursor(), null, 100, tourist);
+        assertThat(next.getChanges()).singleElement()
+                .satisfies(change -> {
+                    assertThat(change.getOperation()).isEqualTo(CatalogChange.Operation.DELETE);
+                    assertThat(change.getData()).isNull();
+                });
+    }
+
+    @Test
+    void compactsEntriesEveryConsumerHasReadAndExpiresOlderCursors() {
+        String head = catalogFeedService.getChanges(null, null, 100, tourist).getNextCursor();
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogChangeLog.tripChanged(trip.getId(), false);
+            catalogChangeLog.tripChanged(trip.getId(), false);
+        });
+
+        // nothing has been read past the head yet
+        assertThat(catalogChangeLog.compactBatch(500)).isZero();
+
+        String next = catalogFeedService.getChanges(head, null, 1, tourist).getNextCursor();
+        catalogFeedService.getChanges(next, null, 100, tourist);
+        assertThat(catalogChangeLog.compactBatch(500)).isEqualTo(1);
+
+        assertThatThrownBy(() -> catalogFeedService.getChanges(head, null, 100, tourist))
+                .isInstanceOf(ChangeFeedExpiredException.class);
+        assertThat(catalogFeedService.getChanges(next, null, 100, tourist).getChanges()).hasSize(1);
+    }
+}
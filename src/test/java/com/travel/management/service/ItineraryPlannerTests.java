@@ -0,0 +1,86 @@
+package com.travel.management.service;
+
+import com.travel.management.dto.ItineraryDTO;
+import com.travel.management.search.TripSearchDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItineraryPlannerTests {
+    private static final LocalDate DAY = LocalDate.of(2026, 5, 1);
+
+    private ItineraryPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        planner = new ItineraryPlanner(2, 2000, 4, 40, 90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        planner.shutdown();
+    }
+
+    @Test
+    void visitsTripsAlongTheShortestPath() {
+        ItineraryDTO itinerary = planner.plan(List.of(
+                trip(1L, 31.0, null, null),
+                trip(2L, 31.3, null, null),
+                trip(3L, 31.1, null, null),
+                trip(4L, 31.2, null, null),
+                new TripSearchDocument(5L, "Unlocated", "", "", "", "", 10.0, null, null, true, null, null)));
+
+        assertEquals(1, itinerary.getDays().size());
+        ItineraryDTO.Day day = itinerary.getDays().get(0);
+        assertEquals(List.of(1L, 3L, 4L, 2L), tripIds(day));
+        assertNull(day.getDate());
+        assertNull(day.getStops().get(0).getArrival());
+        assertEquals(day.getDistanceKm(), itinerary.getTotalDistanceKm());
+        assertEquals(28.93, day.getDistanceKm(), 0.05);
+        assertEquals(List.of(5L), itinerary.getUnroutedTripIds());
+        assertTrue(itinerary.isComplete());
+    }
+
+    @Test
+    void keepsToOpeningHoursAndFillsDaysByProximity() {
+        ItineraryDTO itinerary = planner.plan(List.of(
+                trip(10L, 31.0, at(9), at(18)),
+                // far to the east and only open for the first hour, so it has to come first
+                trip(11L, 31.5, at(9), at(10)),
+                trip(12L, 31.05, at(9), at(18)),
+                trip(13L, 31.02, null, null),
+                trip(14L, 35.0, null, null)));
+
+        assertEquals(2, itinerary.getDays().size());
+        ItineraryDTO.Day first = itinerary.getDays().get(0);
+        assertEquals(DAY, first.getDate());
+        assertEquals(List.of(11L, 12L, 13L, 10L), tripIds(first));
+        assertEquals(at(9), first.getStops().get(0).getArrival());
+        assertTrue(first.getStops().stream().allMatch(ItineraryDTO.Stop::isWithinOpeningHours));
+
+        ItineraryDTO.Day second = itinerary.getDays().get(1);
+        assertEquals(2, second.getDay());
+        assertNull(second.getDate());
+        assertEquals(List.of(14L), tripIds(second));
+    }
+
+    private static TripSearchDocument trip(Long id, double longitude, LocalDateTime opens, LocalDateTime closes) {
+        return new TripSearchDocument(id, "Trip " + id, "", "", "", "", 10.0, opens, closes, true, 30.0, longitude);
+    }
+
+    private static LocalDateTime at(int hour) {
+        return DAY.atTime(hour, 0);
+    }
+
+    private static List<Long> tripIds(ItineraryDTO.Day day) {
+        return day.getStops().stream().map(ItineraryDTO.Stop::getTripId).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package com.travel.management.service;
+
+import com.travel.management.dto.TripUpdateRequest;
+import com.travel.management.model.Package;
+import com.travel.management.model.Role;
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.CatalogChangeRepository;
+import com.travel.management.repository.PackageRepository;
+import com.travel.management.repository.RoleRepository;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PackageAggregateServiceTests {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2026, 11, 1, 9, 0);
+
+    @Autowired
+    private TripService tripService;
+    @Autowired
+    private PackageAggregateService packageAggregateService;
+    @Autowired
+    private PackageService packageService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TripRepository tripRepository;
+    @Autowired
+    private PackageRepository packageRepository;
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    private Authentication manager;
+    private Trip cruise;
+    private Trip temple;
+    private Package pack;
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.save(new Role(null, Role.RoleType.ROLE_MANAGER));
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail("aggregates@travelnest.com");
+        user.setPassword("encoded");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of(role)));
+        user = userRepository.save(user);
+        manager = new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                List.of(new SimpleGrantedAuthority(Role.RoleType.ROLE_MANAGER.name())));
+
+        cruise = saveTrip("Nile cruise", "3 days", 300.0, MORNING, MORNING.plusDays(3), user);
+        temple = saveTrip("Karnak", "6 hours", 20.0, MORNING.minusDays(1), MORNING.minusDays(1).plusHours(6), user);
+
+        pack = new Package();
+        pack.setName("Upper Egypt");
+        pack.setPrice(299.0);
+        pack.setStatus(Package.PackageStatus.PUBLIC);
+        pack.setCreatedBy(user);
+        pack.setTrips(new HashSet<>(Set.of(cruise, temple)));
+        packageAggregateService.apply(pack, pack.getTrips());
+        pack = packageRepository.save(pack);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeRepository.deleteAll();
+        packageRepository.deleteAll();
+        tripRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void aggregatesAreComputedFromStructuredDurations() {
+        Package stored = packageRepository.findById(pack.getId()).orElseThrow();
+        assertThat(stored.getTotalDurationDays()).isEqualTo(4);
+        assertThat(stored.getTotalDuration()).isEqualTo("4 days");
+        assertThat(stored.getTripPriceTotal()).isEqualTo(320.0);
+        assertThat(stored.getEarliestStart()).isEqualTo(MORNING.minusDays(1));
+        assertThat(stored.getLatestEnd()).isEqualTo(MORNING.plusDays(3));
+        assertThat(stored.getTripCount()).isEqualTo(2);
+        assertThat(stored.getAvailableTripCount()).isEqualTo(2);
+        assertThat(packageService.isPackageAvailableForBooking(pack.getId())).isTrue();
+    }
+
+    @Test
+    void updatingOrDeletingATripRecomputesItsPackages() {
+        tripService.updateTrip(cruise.getId(),
+                TripUpdateRequest.builder().duration("1 week").price(500.0).available(false).build(), null, manager);
+
+        Package updated = packageRepository.findById(pack.getId()).orElseThrow();
+        assertThat(updated.getTotalDurationDays()).isEqualTo(8);
+        assertThat(updated.getTripPriceTotal()).isEqualTo(520.0);
+        assertThat(updated.getAvailableTripCount()).isEqualTo(1);
+        assertThat(packageService.isPackageAvailableForBooking(pack.getId())).isFalse();
+
+        tripService.deleteTrip(temple.getId(), manager);
+
+        Package afterDelete = packageRepository.findById(pack.getId()).orElseThrow();
+        assertThat(afterDelete.getTripCount()).isEqualTo(1);
+        assertThat(afterDelete.getTotalDuration()).isEqualTo("7 days");
+        assertThat(afterDelete.getEarliestStart()).isEqualTo(MORNING);
+    }
+
+    private Trip saveTrip(String title, String duration, double price, LocalDateTime start, LocalDateTime end,
+                          User createdBy) {
+        Trip trip = new Trip();
+        trip.setTitle(title);
+        trip.setAddress("Luxor");
+        trip.setDescription("Description of " + title);
+        trip.setPrice(price);
+        trip.setDuration(duration);
+        trip.setActivity("Sightseeing");
+        trip.setStartTime(start);
+        trip.setEndTime(end);
+        trip.setAvailable(true);
+        trip.setCreatedBy(createdBy);
+        return tripRepository.save(trip);
+    }
+}
@@ -0,0 +1,161 @@
+package com.travel.management.service;
+
+import com.travel.management.config.IdGeneratorAlignment;
+import com.travel.management.dto.TripImportReport;
+import com.travel.management.model.CatalogChange;
+import com.travel.management.model.Role;
+import com.travel.management.model.Trip;
+import com.travel.management.model.User;
+import com.travel.management.repository.CatalogChangeRepository;
+import com.travel.management.repository.RoleRepository;
+import com.travel.management.repository.TripRepository;
+import com.travel.management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class TripImportServiceTests {
+
+    @Autowired
+    private TripImportService tripImportService;
+    @Autowired
+    private IdGeneratorAlignment idGeneratorAlignment;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TripRepository tripRepository;
+    @Autowired
+    private CatalogChangeRepository changeRepository;
+
+    private User user;
+    private Authentication manager;
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.save(new Role(null, Role.RoleType.ROLE_MANAGER));
+        user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail("import@travelnest.com");
+        user.setPassword("encoded");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of(role)));
+        user = userRepository.save(user);
+        manager = new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+                List.of(new SimpleGrantedAuthority(Role.RoleType.ROLE_MANAGER.name())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeRepository.deleteAll();
+        tripRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void importsValidCsvRecordsAndReportsTheRestByLine() throws Exception {
+        importCsv("title,destination,description\nKarnak,Luxor,Temple\n");
+
+        TripImportReport report = importCsv("""
+                title,destination,description,price,latitude,longitude,startTime
+                Pyramids,Giza,"Tombs, sphinx and
+                a camel ride",50,29.9792,31.1342,2026-11-01T09:00
+                ,Cairo,No title,10,,,
+                pyramids,Giza,Same title again,10,,,
+                Karnak,Luxor,Already in the catalog,10,,,
+                Citadel,Cairo,Bad price,cheap,,,
+                Short,Cairo
+                """);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(5);
+        assertThat(report.getErrors())
+                .extracting(TripImportReport.RowError::getLine)
+                .containsExactlyInAnyOrder(4L, 5L, 6L, 7L, 8L);
+        assertThat(report.getErrors())
+                .filteredOn(error -> error.getLine() == 4)
+                .singleElement()
+                .extracting(TripImportReport.RowError::getMessage)
+                .isEqualTo("Title is required");
+
+        Trip pyramids = tripRepository.findAll().stream()
+                .filter(trip -> trip.getTitle().equals("Pyramids"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(pyramids.getDescription()).isEqualTo("Tombs, sphinx and\na camel ride");
+        assertThat(pyramids.getLatitude()).isEqualTo(29.9792);
+        assertThat(changeRepository.findAll())
+                .extracting(CatalogChange::getItemId, CatalogChange::getOperation)
+                .contains(tuple(pyramids.getId(), CatalogChange.Operation.UPSERT));
+    }
+
+    @Test
+    void importsNdjsonAcrossSeveralChunks() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            input.append("{\"title\":\"Trip ").append(i)
+                    .append("\",\"destination\":\"Aswan\",\"description\":\"Felucca\",\"price\":20}\n");
+        }
+        // a title from an earlier chunk, already saved by the time its own chunk is checked
+        input.append("{\"title\":\"trip 0\",\"destination\":\"Aswan\",\"description\":\"Again\"}\n");
+        input.append("{\"title\": broken\n");
+
+        TripImportReport report = tripImportService.importTrips(stream(input.toString()),
+                TripImportService.Format.NDJSON, manager);
+
+        assertThat(report.getImported()).isEqualTo(1200);
+        assertThat(report.getErrors())
+                .extracting(TripImportReport.RowError::getLine)
+                .containsExactlyInAnyOrder(1201L, 1202L);
+        assertThat(report.getErrors())
+                .filteredOn(error -> error.getLine() == 1201)
+                .singleElement()
+                .extracting(TripImportReport.RowError::getMessage)
+                .isEqualTo("Trip with name 'trip 0' already exists");
+        assertThat(tripRepository.count()).isEqualTo(1200);
+    }
+
+    @Test
+    void generatedIdsStartPastRowsWrittenWithoutTheGenerator() throws Exception {
+        jdbcTemplate.update("INSERT INTO trips (id, name, address, description, available, version, created_by) "
+                + "VALUES (100000, 'Legacy', 'Cairo', 'Written before pooled ids', TRUE, 0, ?)", user.getId());
+        idGeneratorAlignment.align();
+
+        importCsv("title,destination,description\nAfter,Cairo,New trip\n");
+
+        Trip imported = tripRepository.findAll().stream()
+                .filter(trip -> trip.getTitle().equals("After"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(imported.getId()).isGreaterThan(100000L);
+    }
+
+    private TripImportReport importCsv(String csv) throws Exception {
+        return tripImportService.importTrips(stream(csv), TripImportService.Format.CSV, manager);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}